@@ -3,16 +3,22 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
 import java.awt.*;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class GelfondShanksGUI extends JFrame {
 
+    private static final Trace.Level SUMMARY = Trace.Level.SUMMARY;
+    private static final Trace.Level FULL = Trace.Level.FULL;
+
     // --- Компоненты GUI ---
     private final JTextField aField = new JTextField(5);
     private final JTextField bField = new JTextField(5);
     private final JTextField pField = new JTextField(5);
     private final JTextArea outputArea = new JTextArea();
+    private final JComboBox<Trace.Level> traceLevelBox = new JComboBox<>(Trace.Level.values());
 
     public GelfondShanksGUI() {
         // --- Настройка главного окна ---
@@ -35,6 +41,9 @@ public class GelfondShanksGUI extends JFrame {
         JButton solveButton = new JButton("Решить");
         // Размещаем кнопку справа, используя дополнительную панель
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        traceLevelBox.setSelectedItem(Trace.Level.FULL);
+        buttonPanel.add(new JLabel("Журнал:"));
+        buttonPanel.add(traceLevelBox);
         buttonPanel.add(solveButton);
 
         JPanel topPanel = new JPanel(new BorderLayout());
@@ -92,8 +101,13 @@ public class GelfondShanksGUI extends JFrame {
             BigInteger p = new BigInteger(pField.getText().trim());
 
             outputArea.setText("");
-            String solution = solve(a, b, p);
-            outputArea.setText(solution);
+            Trace trace = new Trace((Trace.Level) traceLevelBox.getSelectedItem());
+            BigInteger x = solve(a, b, p, trace);
+            if (trace.isEnabled(Trace.Level.SUMMARY)) {
+                outputArea.setText(trace.format());
+            } else {
+                outputArea.setText(x != null ? "Ответ: " + x + " mod " + p : "Решение не найдено.");
+            }
 
         } catch (NumberFormatException ex) {
             outputArea.setText("Ошибка: Пожалуйста, введите корректные целые числа во все поля.");
@@ -102,74 +116,129 @@ public class GelfondShanksGUI extends JFrame {
         }
     }
 
-    private String solve(BigInteger a, BigInteger b, BigInteger p) {
-        StringBuilder sb = new StringBuilder();
-
+    private BigInteger solve(BigInteger a, BigInteger b, BigInteger p, Trace trace) {
         BigInteger m = p.sqrt().add(BigInteger.ONE);
-        sb.append("Сначала считается m:\n");
-        sb.append("m = [\u221A").append(p).append("] + 1 = ").append(m).append("\n\n");
+        trace.message(SUMMARY, "Сначала считается m:");
+        trace.message(SUMMARY, "m = [\u221A%s] + 1 = %s\n", p, m);
 
-        sb.append("Имеем:\n");
-        sb.append("a = ").append(a).append("; b = ").append(b).append("; p = ").append(p).append("\n\n");
-        sb.append("Составляем выражение на основе формулы a^(im) \u2261 b * a^j mod p:\n");
-        sb.append(a).append("^(").append("i*").append(m).append(") \u2261 ").append(b).append(" * ").append(a).append("^j mod ").append(p).append("\n\n");
+        trace.message(SUMMARY, "Имеем:");
+        trace.message(SUMMARY, "a = %s; b = %s; p = %s\n", a, b, p);
+        trace.message(SUMMARY, "Составляем выражение на основе формулы a^(im) \u2261 b * a^j mod p:");
+        trace.message(SUMMARY, "%s^(i*%s) \u2261 %s * %s^j mod %s\n", a, m, b, a, p);
 
         BigInteger am = a.modPow(m, p);
-        sb.append("Считаем левую часть: (").append(a).append("^").append(m).append(")^i \u2261 ").append(am).append("^i mod ").append(p).append("\n");
-
-        Map<BigInteger, BigInteger> giantSteps = new HashMap<>();
-        StringBuilder iLine = new StringBuilder("i:\t");
-        StringBuilder valLine = new StringBuilder(am + "^i:\t");
-
-        for (BigInteger i = BigInteger.ONE; i.compareTo(m) <= 0; i = i.add(BigInteger.ONE)) {
-            BigInteger value = am.modPow(i, p);
-            giantSteps.put(value, i);
-            iLine.append(i).append("\t");
-            valLine.append(value).append("\t");
+        trace.message(SUMMARY, "Считаем левую часть: (%s^%s)^i \u2261 %s^i mod %s", a, m, am, p);
+
+        // Значения для таблиц сохраняем только при полном журнале, строки собираются при выводе
+        List<BigInteger> giantValues = trace.isFull() ? new ArrayList<>() : null;
+        List<BigInteger> babyValues = trace.isFull() ? new ArrayList<>() : null;
+
+        // p помещается в машинное слово - обе серии считаются в long
+        ModArith.Modulus word = ModArith.forModulus(p);
+        BigInteger[] match = word != null
+                ? findMatchWord(word, a, b, m, am, giantValues, babyValues)
+                : findMatch(a, b, p, m, am, giantValues, babyValues);
+        BigInteger match_i = match != null ? match[0] : null;
+        BigInteger match_j = match != null ? match[1] : null;
+
+        if (giantValues != null) {
+            trace.message(FULL, "Составляем таблицу для %s^i:", am);
+            trace.event(FULL, sb -> appendTable(sb, "i:", am + "^i:", giantValues).append('\n'));
         }
 
-        sb.append("Составляем таблицу для ").append(am).append("^i:\n");
-        sb.append(iLine.toString().trim()).append("\n");
-        sb.append(valLine.toString().trim()).append("\n\n");
-
-        sb.append("Теперь составляем таблицу для ").append(b).append(" * ").append(a).append("^j и ищем совпадение:\n");
-        StringBuilder jLine = new StringBuilder("j:\t");
-        StringBuilder bajLine = new StringBuilder(b + "*" + a + "^j:\t");
-
-        BigInteger match_i = null;
-        BigInteger match_j = null;
-
-        for (BigInteger j = BigInteger.ONE; j.compareTo(m) <= 0; j = j.add(BigInteger.ONE)) {
-            BigInteger aj = a.modPow(j, p);
-            BigInteger value = b.multiply(aj).mod(p);
-            jLine.append(j).append("\t");
-            bajLine.append(value).append("\t");
-            if (giantSteps.containsKey(value)) {
-                match_i = giantSteps.get(value);
-                match_j = j;
-                break;
-            }
+        if (babyValues != null) {
+            trace.message(FULL, "Теперь составляем таблицу для %s * %s^j и ищем совпадение:", b, a);
+            trace.event(FULL, sb -> appendTable(sb, "j:", b + "*" + a + "^j:", babyValues).append('\n'));
         }
-        sb.append(jLine.toString().trim()).append("\n");
-        sb.append(bajLine.toString().trim()).append("\n\n");
 
         if (match_i != null) {
-            sb.append("Найдено совпадение при i = ").append(match_i).append(" и j = ").append(match_j).append("\n");
+            trace.message(SUMMARY, "Найдено совпадение при i = %s и j = %s", match_i, match_j);
             BigInteger finalValue = b.multiply(a.modPow(match_j, p)).mod(p);
-            sb.append(am).append("^").append(match_i).append(" \u2261 ").append(b).append(" * ").append(a).append("^").append(match_j).append(" (оба равны ").append(finalValue).append(")").append("\n\n");
+            trace.message(SUMMARY, "%s^%s \u2261 %s * %s^%s (оба равны %s)\n", am, match_i, b, a, match_j, finalValue);
 
-            sb.append("Составляем уравнение x = i*m - j:\n");
+            trace.message(SUMMARY, "Составляем уравнение x = i*m - j:");
             BigInteger x = match_i.multiply(m).subtract(match_j);
             BigInteger pMinusOne = p.subtract(BigInteger.ONE);
             x = x.mod(pMinusOne);
-            sb.append("x = ").append(match_i).append(" * ").append(m).append(" - ").append(match_j).append(" = ").append(x).append(" mod ").append(pMinusOne).append("\n\n");
+            trace.message(SUMMARY, "x = %s * %s - %s = %s mod %s\n", match_i, m, match_j, x, pMinusOne);
 
             // ИЗМЕНЕННАЯ СТРОКА: Формат ответа теперь "x mod p"
-            sb.append("Ответ: ").append(x).append(" mod ").append(p);
+            trace.message(SUMMARY, "Ответ: %s mod %s", x, p);
+            return x;
         } else {
-            sb.append("Решение не найдено.");
+            trace.message(SUMMARY, "Решение не найдено.");
+            return null;
+        }
+    }
+
+    /**
+     * Шаги гиганта (a^m)^i, i = 1..m, затем шаги младенца b * a^j до первого совпадения.
+     * Показатели идут подряд, поэтому каждое следующее значение - одно умножение
+     * предыдущего на a^m или a.
+     * @return {i, j} или null, если совпадения нет.
+     */
+    private static BigInteger[] findMatch(BigInteger a, BigInteger b, BigInteger p, BigInteger m, BigInteger am,
+                                          List<BigInteger> giantValues, List<BigInteger> babyValues) {
+        Map<BigInteger, BigInteger> giantSteps = new HashMap<>();
+        BigInteger value = BigInteger.ONE;
+        for (BigInteger i = BigInteger.ONE; i.compareTo(m) <= 0; i = i.add(BigInteger.ONE)) {
+            value = value.multiply(am).mod(p);
+            giantSteps.put(value, i);
+            if (giantValues != null) giantValues.add(value);
+        }
+
+        value = b.mod(p);
+        for (BigInteger j = BigInteger.ONE; j.compareTo(m) <= 0; j = j.add(BigInteger.ONE)) {
+            value = value.multiply(a).mod(p);
+            if (babyValues != null) babyValues.add(value);
+            if (giantSteps.containsKey(value)) {
+                return new BigInteger[]{giantSteps.get(value), j};
+            }
+        }
+        return null;
+    }
+
+    // То же в машинных словах: каждая следующая степень - одно умножение на a^m или a
+    private static BigInteger[] findMatchWord(ModArith.Modulus word, BigInteger a, BigInteger b,
+                                              BigInteger m, BigInteger am,
+                                              List<BigInteger> giantValues, List<BigInteger> babyValues) {
+        long p = word.modulus();
+        long steps = m.longValueExact();
+        long amWord = am.longValue();
+        Map<Long, Long> giantSteps = new HashMap<>();
+        long value = 1;
+        for (long i = 1; i <= steps; i++) {
+            value = word.mulMod(value, amWord);
+            giantSteps.put(value, i);
+            if (giantValues != null) giantValues.add(BigInteger.valueOf(value));
+        }
+
+        long aWord = a.mod(BigInteger.valueOf(p)).longValue();
+        long bWord = b.mod(BigInteger.valueOf(p)).longValue();
+        long aj = 1;
+        for (long j = 1; j <= steps; j++) {
+            aj = word.mulMod(aj, aWord);
+            long baby = word.mulMod(bWord, aj);
+            if (babyValues != null) babyValues.add(BigInteger.valueOf(baby));
+            Long i = giantSteps.get(baby);
+            if (i != null) {
+                return new BigInteger[]{BigInteger.valueOf(i), BigInteger.valueOf(j)};
+            }
+        }
+        return null;
+    }
+
+    // Таблица из двух строк: номера шагов 1..n и значения на этих шагах
+    private static StringBuilder appendTable(StringBuilder sb, String indexHeader, String valueHeader, List<BigInteger> values) {
+        sb.append(indexHeader);
+        for (int i = 1; i <= values.size(); i++) {
+            sb.append('\t').append(i);
+        }
+        sb.append('\n').append(valueHeader);
+        for (BigInteger value : values) {
+            sb.append('\t').append(value);
         }
-        return sb.toString();
+        return sb;
     }
 
     public static void main(String[] args) {
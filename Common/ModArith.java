@@ -0,0 +1,220 @@
+// Файл: ModArith.java
+// Модульная арифметика в машинных словах для модулей, помещающихся в long.
+// Решатели выбирают её автоматически (forModulus), а для больших p остаются на BigInteger:
+// - Montgomery: нечётный модуль n < 2^63, умножение через Math.multiplyHigh без деления;
+// - Barrett: любой модуль n < 2^32, произведение вычетов помещается в 64 бита;
+// - invertAll: обращение массива за одно взятие обратного (приём Монтгомери).
+import java.math.BigInteger;
+
+public final class ModArith {
+
+    private ModArith() {
+    }
+
+    /**
+     * Умножение вычетов в обычной форме (0 <= a, b < n).
+     */
+    public interface Modulus {
+        long modulus();
+
+        long mulMod(long a, long b);
+
+        default long addMod(long a, long b) {
+            long r = a + b;
+            return Long.compareUnsigned(r, modulus()) >= 0 ? r - modulus() : r;
+        }
+
+        default long powMod(long base, long e) {
+            long result = 1 % modulus();
+            while (e > 0) {
+                if ((e & 1) != 0) result = mulMod(result, base);
+                base = mulMod(base, base);
+                e >>= 1;
+            }
+            return result;
+        }
+
+        /**
+         * Обратные ко всем элементам values (все обратимы): префиксные произведения,
+         * одно обращение их итога и обратный проход - 3(k-1) умножений вместо k обращений.
+         */
+        default long[] invertAll(long[] values) {
+            int k = values.length;
+            long[] result = new long[k];
+            if (k == 0) return result;
+            long[] prefix = new long[k];
+            prefix[0] = values[0];
+            for (int i = 1; i < k; i++) {
+                prefix[i] = mulMod(prefix[i - 1], values[i]);
+            }
+            long inv = inverse(prefix[k - 1], modulus());
+            for (int i = k - 1; i > 0; i--) {
+                result[i] = mulMod(inv, prefix[i - 1]);
+                inv = mulMod(inv, values[i]);
+            }
+            result[0] = inv;
+            return result;
+        }
+    }
+
+    /**
+     * Подходящая реализация для модуля n или null, если n не помещается в машинное слово
+     * (тогда вызывающий код остаётся на BigInteger).
+     */
+    public static Modulus forModulus(BigInteger n) {
+        if (n.signum() <= 0 || n.bitLength() > 63) return null;
+        return forModulus(n.longValue());
+    }
+
+    public static Modulus forModulus(long n) {
+        if (n < 2) return null;
+        if (n < (1L << 32)) return new Barrett(n);
+        return (n & 1) != 0 ? new Montgomery(n) : null;
+    }
+
+    /**
+     * a^(-1) mod n расширенным алгоритмом Евклида.
+     */
+    public static long inverse(long a, long n) {
+        long r0 = n, r1 = a % n;
+        long t0 = 0, t1 = 1;
+        while (r1 != 0) {
+            long q = r0 / r1;
+            long r = r0 - q * r1;
+            r0 = r1;
+            r1 = r;
+            long t = t0 - q * t1;
+            t0 = t1;
+            t1 = t;
+        }
+        if (r0 != 1) {
+            throw new ArithmeticException(a + " не обратим по модулю " + n);
+        }
+        return t0 < 0 ? t0 + n : t0;
+    }
+
+    /**
+     * Умножение Монтгомери по нечётному модулю n < 2^63 (R = 2^64).
+     * Вычеты в форме Монтгомери: a' = a * R mod n. Промежуточные суммы могут занимать
+     * все 64 бита, поэтому сравнения беззнаковые.
+     */
+    public static final class Montgomery implements Modulus {
+        private final long n;
+        private final long nInv;     // -n^(-1) mod 2^64
+        private final long one;      // R mod n
+        private final long minusOne; // -R mod n
+        private final long r2;       // R^2 mod n
+
+        public Montgomery(long n) {
+            if (n < 3 || (n & 1) == 0) {
+                throw new IllegalArgumentException("Montgomery modulus must be odd and > 2: " + n);
+            }
+            this.n = n;
+            long inv = n; // верно в 3 младших битах; каждая итерация Ньютона удваивает их число
+            for (int i = 0; i < 5; i++) {
+                inv *= 2 - n * inv;
+            }
+            this.nInv = -inv;
+            this.one = Long.remainderUnsigned(-n, n);
+            long r = one;
+            for (int i = 0; i < 64; i++) {
+                r = add(r, r);
+            }
+            this.r2 = r;
+            this.minusOne = n - one;
+        }
+
+        @Override
+        public long modulus() {
+            return n;
+        }
+
+        public long one() {
+            return one;
+        }
+
+        public long minusOne() {
+            return minusOne;
+        }
+
+        public long toMont(long a) {
+            return mul(a, r2);
+        }
+
+        public long fromMont(long a) {
+            return mul(a, 1);
+        }
+
+        // REDC(a * b) = a * b * R^(-1) mod n
+        public long mul(long a, long b) {
+            long lo = a * b;
+            long hi = Math.multiplyHigh(a, b);
+            long m = lo * nInv;
+            long mnHi = Math.multiplyHigh(m, n) + ((m >> 63) & n);
+            long r = hi + mnHi + (lo != 0 ? 1 : 0);
+            return Long.compareUnsigned(r, n) >= 0 ? r - n : r;
+        }
+
+        public long add(long a, long b) {
+            long r = a + b;
+            return Long.compareUnsigned(r, n) >= 0 ? r - n : r;
+        }
+
+        public long sub(long a, long b) {
+            long r = a - b;
+            return a < b ? r + n : r;
+        }
+
+        // Степень в форме Монтгомери
+        public long pow(long base, long e) {
+            long result = one;
+            while (e > 0) {
+                if ((e & 1) != 0) result = mul(result, base);
+                base = mul(base, base);
+                e >>= 1;
+            }
+            return result;
+        }
+
+        // Обычная форма: (a*R) * (b*R) * R^(-1) * R^(-1) = a*b*R^(-1), ещё одно REDC с R^2 возвращает a*b
+        @Override
+        public long mulMod(long a, long b) {
+            return mul(mul(a, b), r2);
+        }
+    }
+
+    /**
+     * Редукция Барретта по модулю n < 2^32: q = floor(x * mu / 2^64), mu = floor((2^64 - 1) / n),
+     * x - q*n отличается от x mod n не больше чем на 2n.
+     */
+    public static final class Barrett implements Modulus {
+        private final long n;
+        private final long mu;
+
+        public Barrett(long n) {
+            if (n < 2 || n >= (1L << 32)) {
+                throw new IllegalArgumentException("Barrett modulus must be in [2, 2^32): " + n);
+            }
+            this.n = n;
+            this.mu = Long.divideUnsigned(-1L, n);
+        }
+
+        @Override
+        public long modulus() {
+            return n;
+        }
+
+        // x - беззнаковое 64-битное число
+        public long reduce(long x) {
+            long q = Math.multiplyHigh(x, mu) + ((x >> 63) & mu) + ((mu >> 63) & x);
+            long r = x - q * n;
+            while (Long.compareUnsigned(r, n) >= 0) r -= n;
+            return r;
+        }
+
+        @Override
+        public long mulMod(long a, long b) {
+            return reduce(a * b);
+        }
+    }
+}
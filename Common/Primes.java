@@ -0,0 +1,132 @@
+// Файл: Primes.java
+// Общий источник простых чисел для всех программ:
+// - таблица простых, которая по мере надобности дорастает сегментированным решетом Эратосфена
+//   (сегмент помещается в кэш процессора, уже найденные простые не пересчитываются);
+// - детерминированный тест Миллера-Рабина для 64-битных чисел (арифметика - ModArith.Montgomery).
+import java.math.BigInteger;
+import java.util.Arrays;
+
+public final class Primes {
+
+    private static final int SEGMENT_SIZE = 1 << 15;
+    // Основания, при которых тест Миллера-Рабина точен для всех n < 2^64 (набор Синклера)
+    private static final long[] MR_BASES = {2, 325, 9375, 28178, 450775, 9780504, 1795265022};
+    private static final int[] SMALL = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37};
+
+    private static int[] table = new int[1024];
+    private static int count = 0;
+    private static int sievedTo = 1; // все простые <= sievedTo уже в таблице
+
+    private Primes() {
+    }
+
+    /**
+     * Первые n простых чисел.
+     */
+    public static synchronized int[] first(int n) {
+        if (n > count) {
+            // p_n < n (ln n + ln ln n) при n >= 6
+            double ln = Math.log(Math.max(n, 6));
+            long estimate = (long) (Math.max(n, 6) * (ln + Math.log(ln))) + 1;
+            sieveTo((int) Math.min(Integer.MAX_VALUE - 1, estimate));
+            while (count < n) {
+                sieveTo(sievedTo + 1);
+            }
+        }
+        return Arrays.copyOf(table, n);
+    }
+
+    /**
+     * Все простые <= limit.
+     */
+    public static synchronized int[] upTo(int limit) {
+        sieveTo(limit);
+        int end = Arrays.binarySearch(table, 0, count, limit);
+        return Arrays.copyOf(table, end >= 0 ? end + 1 : -end - 1);
+    }
+
+    public static boolean isPrime(BigInteger n) {
+        if (n.signum() <= 0) return false;
+        if (n.bitLength() < 64) return isPrime(n.longValue());
+        return n.isProbablePrime(50);
+    }
+
+    /**
+     * Детерминированная проверка простоты для всего диапазона long.
+     */
+    public static boolean isPrime(long n) {
+        if (n < 2) return false;
+        for (int q : SMALL) {
+            if (n % q == 0) return n == q;
+        }
+        if (n < 41 * 41) return true;
+
+        long d = n - 1;
+        int s = Long.numberOfTrailingZeros(d);
+        d >>= s;
+        ModArith.Montgomery m = new ModArith.Montgomery(n);
+        for (long base : MR_BASES) {
+            long a = base % n;
+            if (a == 0) continue;
+            long x = m.pow(m.toMont(a), d);
+            if (x == m.one() || x == m.minusOne()) continue;
+            boolean composite = true;
+            for (int r = 1; r < s; r++) {
+                x = m.mul(x, x);
+                if (x == m.minusOne()) {
+                    composite = false;
+                    break;
+                }
+            }
+            if (composite) return false;
+        }
+        return true;
+    }
+
+    // Досеивает таблицу до limit сегментами по SEGMENT_SIZE
+    private static void sieveTo(int limit) {
+        if (limit <= sievedTo) return;
+        // Растём не меньше чем вдвое, чтобы серия мелких запросов не сеяла по кусочку
+        int target = (int) Math.min(Integer.MAX_VALUE - 1, Math.max(limit, 2L * sievedTo));
+        int[] basePrimes = simpleSieve((int) Math.sqrt((double) target) + 1);
+
+        boolean[] composite = new boolean[SEGMENT_SIZE];
+        for (long low = sievedTo + 1L; low <= target; low += SEGMENT_SIZE) {
+            long high = Math.min(low + SEGMENT_SIZE - 1, target);
+            Arrays.fill(composite, false);
+            for (int q : basePrimes) {
+                long start = Math.max((long) q * q, (low + q - 1) / q * q);
+                if (start > high) continue;
+                for (long j = start; j <= high; j += q) {
+                    composite[(int) (j - low)] = true;
+                }
+            }
+            for (long i = Math.max(low, 2); i <= high; i++) {
+                if (!composite[(int) (i - low)]) add((int) i);
+            }
+        }
+        sievedTo = target;
+    }
+
+    private static void add(int prime) {
+        if (count == table.length) {
+            table = Arrays.copyOf(table, count * 2);
+        }
+        table[count++] = prime;
+    }
+
+    private static int[] simpleSieve(int limit) {
+        boolean[] composite = new boolean[limit + 1];
+        int found = 0;
+        for (int i = 2; i <= limit; i++) {
+            if (composite[i]) continue;
+            found++;
+            for (long j = (long) i * i; j <= limit; j += i) composite[(int) j] = true;
+        }
+        int[] primes = new int[found];
+        for (int i = 2, pos = 0; i <= limit; i++) {
+            if (!composite[i]) primes[pos++] = i;
+        }
+        return primes;
+    }
+}
@@ -0,0 +1,166 @@
+// Файл: Trace.java
+// Общий журнал пошагового решения для всех решателей.
+// События записываются без форматирования, строки собираются только когда GUI или отчёт
+// запрашивает текст. События уровня SUMMARY (условие, основные шаги, ответ) хранятся все,
+// построчные события FULL - в кольцевом буфере ограниченного размера: на долгом прогоне
+// вытесняются только старые строки таблиц.
+import java.util.Arrays;
+
+public final class Trace {
+
+    public enum Level {
+        OFF,     // ничего не записываем
+        SUMMARY, // только основные шаги и ответ
+        FULL     // каждая итерация, все таблицы
+    }
+
+    /**
+     * Событие журнала. Форматируется только при выводе.
+     */
+    @FunctionalInterface
+    public interface Event {
+        void appendTo(StringBuilder sb);
+    }
+
+    // Сколько последних событий FULL хранится; события SUMMARY не ограничены
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    private final Level level;
+    private long written = 0; // сколько событий записано за всё время, номер следующего
+
+    // События SUMMARY и их номера, по возрастанию
+    private Event[] summary = new Event[64];
+    private long[] summarySeq = new long[64];
+    private int summaryCount = 0;
+
+    // Последние события FULL и их номера
+    private final Event[] ring;
+    private final long[] ringSeq;
+    private long fullWritten = 0;
+    private long evictedSeq = -1; // номер последнего вытесненного события FULL
+
+    public Trace(Level level) {
+        this(level, DEFAULT_CAPACITY);
+    }
+
+    public Trace(Level level, int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Trace capacity must be positive.");
+        this.level = level;
+        this.ring = new Event[capacity];
+        this.ringSeq = new long[capacity];
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    // Дешёвая проверка для горячих циклов: при false не нужно даже готовить аргументы
+    public boolean isEnabled(Level eventLevel) {
+        return eventLevel != Level.OFF && level.compareTo(eventLevel) >= 0;
+    }
+
+    public boolean isFull() {
+        return level == Level.FULL;
+    }
+
+    public void event(Level eventLevel, Event event) {
+        if (!isEnabled(eventLevel)) return;
+        append(eventLevel, event);
+    }
+
+    // Шаблон String.format, аргументы сохраняются как есть и форматируются позже
+    public void message(Level eventLevel, String pattern, Object... args) {
+        if (!isEnabled(eventLevel)) return;
+        append(eventLevel, new Message(pattern, args));
+    }
+
+    public void message(Level eventLevel, String text) {
+        if (!isEnabled(eventLevel)) return;
+        append(eventLevel, sb -> sb.append(text));
+    }
+
+    private synchronized void append(Level eventLevel, Event event) {
+        if (eventLevel == Level.FULL) {
+            int slot = (int) (fullWritten % ring.length);
+            if (fullWritten >= ring.length) evictedSeq = ringSeq[slot];
+            ring[slot] = event;
+            ringSeq[slot] = written;
+            fullWritten++;
+        } else {
+            if (summaryCount == summary.length) {
+                summary = Arrays.copyOf(summary, summaryCount * 2);
+                summarySeq = Arrays.copyOf(summarySeq, summaryCount * 2);
+            }
+            summary[summaryCount] = event;
+            summarySeq[summaryCount] = written;
+            summaryCount++;
+        }
+        written++;
+    }
+
+    /**
+     * Номер следующего события; используется как курсор для formatSince.
+     */
+    public synchronized long position() {
+        return written;
+    }
+
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        formatSince(0, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Форматирует события, начиная с курсора from (по одному на строку, в порядке записи).
+     * Если часть событий FULL уже вытеснена из буфера, на их месте выводится пометка;
+     * события SUMMARY не теряются.
+     * @return Новый курсор.
+     */
+    public synchronized long formatSince(long from, StringBuilder out) {
+        int s = Arrays.binarySearch(summarySeq, 0, summaryCount, from);
+        if (s < 0) s = -s - 1;
+        // Событий FULL с номером < from: все номера до from, кроме событий SUMMARY
+        long fullBefore = from - s;
+        long oldestFull = Math.max(0, fullWritten - ring.length);
+        long f = Math.max(fullBefore, oldestFull);
+        long dropped = oldestFull - Math.min(fullBefore, oldestFull);
+
+        while (s < summaryCount || f < fullWritten) {
+            boolean takeSummary = f == fullWritten
+                    || s < summaryCount && summarySeq[s] < ringSeq[(int) (f % ring.length)];
+            long seq = takeSummary ? summarySeq[s] : ringSeq[(int) (f % ring.length)];
+            if (dropped > 0 && seq > evictedSeq) {
+                appendDropped(out, dropped);
+                dropped = 0;
+            }
+            if (takeSummary) {
+                summary[s++].appendTo(out);
+            } else {
+                ring[(int) (f++ % ring.length)].appendTo(out);
+            }
+            out.append('\n');
+        }
+        if (dropped > 0) appendDropped(out, dropped);
+        return written;
+    }
+
+    private static void appendDropped(StringBuilder out, long count) {
+        out.append("... (пропущено событий: ").append(count).append(") ...\n");
+    }
+
+    private static final class Message implements Event {
+        private final String pattern;
+        private final Object[] args;
+
+        Message(String pattern, Object[] args) {
+            this.pattern = pattern;
+            this.args = args;
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb) {
+            sb.append(args.length == 0 ? pattern : String.format(pattern, args));
+        }
+    }
+}
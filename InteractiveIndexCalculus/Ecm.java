@@ -0,0 +1,172 @@
+// Файл: Ecm.java
+// Короткий метод Ленстры (ECM) для разложения кофакторов, оставшихся после деления
+// на малые простые базы. Кривые Монтгомери B*y^2 = x^3 + A*x^2 + x в проективных
+// координатах (X : Z), только первая стадия: точка умножается на все степени простых <= B1.
+// Арифметика по модулю n < 2^62 ведётся в машинных словах (ModArith.Montgomery).
+
+class Ecm {
+
+    static final int MAX_BITS = 62;
+    static final int DEFAULT_B1 = 200;
+    static final int DEFAULT_CURVES = 16;
+
+    private static final int[] SMALL_PRIMES = Primes.upTo(DEFAULT_B1);
+
+    private final int b1;
+    private final int maxCurves;
+    private long nextSigma = 6;
+
+    // Счётчики трудоёмкости - по ним подбираются B1 и число кривых
+    private long curves = 0;
+    private long curveOps = 0;   // удвоения и сложения точек
+    private long found = 0;
+    private long failed = 0;
+
+    private ModArith.Montgomery mont; // арифметика по текущему модулю
+    private long px, pz;              // текущая точка кривой
+    private long rx, rz;              // результат xDbl/xAdd - без массива на каждый шаг
+
+    Ecm() {
+        this(DEFAULT_B1, DEFAULT_CURVES);
+    }
+
+    Ecm(int b1, int maxCurves) {
+        if (b1 > DEFAULT_B1) throw new IllegalArgumentException("B1 must not exceed " + DEFAULT_B1);
+        this.b1 = b1;
+        this.maxCurves = maxCurves;
+    }
+
+    /**
+     * Ищет нетривиальный делитель составного n (n < 2^62).
+     * @return Делитель 1 < f < n или 0, если за maxCurves кривых ничего не найдено.
+     */
+    long findFactor(long n) {
+        if (n <= 3 || 64 - Long.numberOfLeadingZeros(n) > MAX_BITS) {
+            throw new IllegalArgumentException("ECM modulus out of range: " + n);
+        }
+        if ((n & 1) == 0) return 2;
+        mont = new ModArith.Montgomery(n);
+        long five = mont.toMont(5);
+        long three = mont.toMont(3);
+
+        for (int c = 0; c < maxCurves; c++) {
+            curves++;
+            // Параметризация Суямы: u = s^2 - 5, v = 4s, x0 = u^3, z0 = v^3,
+            // (A + 2) / 4 = (v - u)^3 * (3u + v) / (16 * u^3 * v); всё в форме Монтгомери
+            long s = mont.toMont(nextSigma++ % (n - 6) + 6);
+            long u = mont.sub(mont.mul(s, s), five);
+            long v = times4(s);
+            long u3 = mont.mul(mont.mul(u, u), u);
+            long den = times4(times4(mont.mul(u3, v)));
+            long plainDen = mont.fromMont(den);
+            long d = gcd(plainDen, n);
+            if (d != 1) {
+                if (d < n) {
+                    found++;
+                    return d;
+                }
+                continue;
+            }
+            long vu = mont.sub(v, u);
+            long num = mont.mul(mont.mul(mont.mul(vu, vu), vu), mont.add(mont.mul(three, u), v));
+            long a24 = mont.mul(num, mont.toMont(ModArith.inverse(plainDen, n)));
+            px = u3;
+            pz = mont.mul(mont.mul(v, v), v);
+
+            for (int q : SMALL_PRIMES) {
+                if (q > b1) break;
+                for (long power = q; power <= b1; power *= q) {
+                    ladder(q, a24);
+                }
+            }
+            long g = gcd(mont.fromMont(pz), n);
+            if (g > 1 && g < n) {
+                found++;
+                return g;
+            }
+        }
+        failed++;
+        return 0;
+    }
+
+    long getCurves() {
+        return curves;
+    }
+
+    long getCurveOps() {
+        return curveOps;
+    }
+
+    long getFound() {
+        return found;
+    }
+
+    long getFailed() {
+        return failed;
+    }
+
+    // Лестница Монтгомери: (px : pz) <- k * (px : pz)
+    private void ladder(int k, long a24) {
+        long x = px;
+        long z = pz;
+        long x0 = x, z0 = z;
+        xDbl(x, z, a24);
+        long x1 = rx, z1 = rz;
+        for (int bit = 30 - Integer.numberOfLeadingZeros(k); bit >= 0; bit--) {
+            xAdd(x0, z0, x1, z1, x, z);
+            long sumX = rx, sumZ = rz;
+            if (((k >>> bit) & 1) != 0) {
+                xDbl(x1, z1, a24);
+                x0 = sumX;
+                z0 = sumZ;
+                x1 = rx;
+                z1 = rz;
+            } else {
+                xDbl(x0, z0, a24);
+                x1 = sumX;
+                z1 = sumZ;
+                x0 = rx;
+                z0 = rz;
+            }
+        }
+        px = x0;
+        pz = z0;
+    }
+
+    // 2P: X = (X+Z)^2 * (X-Z)^2, Z = 4XZ * ((X-Z)^2 + a24 * 4XZ); результат в (rx : rz)
+    private void xDbl(long x, long z, long a24) {
+        curveOps++;
+        long s = mont.add(x, z);
+        long d = mont.sub(x, z);
+        long s2 = mont.mul(s, s);
+        long d2 = mont.mul(d, d);
+        long t = mont.sub(s2, d2);
+        rx = mont.mul(s2, d2);
+        rz = mont.mul(t, mont.add(d2, mont.mul(a24, t)));
+    }
+
+    // P + Q по известной разности P - Q = (xd : zd); результат в (rx : rz)
+    private void xAdd(long xp, long zp, long xq, long zq, long xd, long zd) {
+        curveOps++;
+        long u = mont.mul(mont.sub(xp, zp), mont.add(xq, zq));
+        long v = mont.mul(mont.add(xp, zp), mont.sub(xq, zq));
+        long plus = mont.add(u, v);
+        long minus = mont.sub(u, v);
+        rx = mont.mul(zd, mont.mul(plus, plus));
+        rz = mont.mul(xd, mont.mul(minus, minus));
+    }
+
+    private long times4(long a) {
+        long twice = mont.add(a, a);
+        return mont.add(twice, twice);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -5,8 +5,13 @@ import java.awt.event.ActionListener;
 import java.math.BigInteger;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 
 public class IndexCalculusGUI extends JFrame {
@@ -14,9 +19,14 @@ public class IndexCalculusGUI extends JFrame {
     private final JTextField pField = new JTextField("47", 10);
     private final JTextField gField = new JTextField("10", 10);
     private final JTextField aField = new JTextField("17", 10);
-    private final JSpinner tSpinner = new JSpinner(new SpinnerNumberModel(3, 2, 10, 1)); // t=3
+    private final JSpinner tSpinner = new JSpinner(new SpinnerNumberModel(3, 2, 100, 1)); // t=3
     private final JSpinner cSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 10, 1)); // c=1
+    private final JCheckBox largePrimeBox = new JCheckBox("Большие простые", true);
+    private final JCheckBox rationalSplitBox = new JCheckBox("Дроби u/v", false);
+    private final JComboBox<SearchMode> searchModeBox = new JComboBox<>(SearchMode.values());
+    private final JComboBox<Trace.Level> traceLevelBox = new JComboBox<>(Trace.Level.values());
     private final JButton calculateButton = new JButton("Вычислить x");
+    private final JButton stopButton = new JButton("Стоп");
     private final JTextArea logArea = new JTextArea(25, 60);
     private final JTextField resultField = new JTextField(15);
     private final JProgressBar progressBar = new JProgressBar();
@@ -46,6 +56,15 @@ public class IndexCalculusGUI extends JFrame {
         cSpinner.setModel(new SpinnerNumberModel(1, 1, 30, 1));
         inputPanel.add(new JLabel("Доп. уравн. c:"));
         inputPanel.add(cSpinner);
+        largePrimeBox.setToolTipText("Сохранять отношения с одним простым множителем вне базы и склеивать пары с общим множителем");
+        inputPanel.add(largePrimeBox);
+        rationalSplitBox.setToolTipText("Записывать g^k mod p дробью u/v с |u|, |v| ~ sqrt(p) и раскладывать по базе u и v отдельно");
+        inputPanel.add(rationalSplitBox);
+        inputPanel.add(new JLabel("Перебор k:"));
+        inputPanel.add(searchModeBox);
+        traceLevelBox.setSelectedItem(Trace.Level.FULL);
+        inputPanel.add(new JLabel("Журнал:"));
+        inputPanel.add(traceLevelBox);
         add(inputPanel, BorderLayout.NORTH);
 
         logArea.setEditable(false);
@@ -56,6 +75,8 @@ public class IndexCalculusGUI extends JFrame {
 
         JPanel controlPanel = new JPanel(new FlowLayout());
         controlPanel.add(calculateButton);
+        stopButton.setEnabled(false);
+        controlPanel.add(stopButton);
         controlPanel.add(new JLabel("Результат x:"));
         resultField.setEditable(false);
         resultField.setFont(new Font(Font.MONOSPACED, Font.BOLD, 14));
@@ -73,6 +94,11 @@ public class IndexCalculusGUI extends JFrame {
                 startCalculation();
             }
         });
+        stopButton.addActionListener(e -> {
+            if (worker != null) {
+                worker.cancel(true);
+            }
+        });
 
         pack();
         setLocationRelativeTo(null);
@@ -85,8 +111,12 @@ private void startCalculation() {
             BigInteger a = new BigInteger(aField.getText().trim());
             int t = (Integer) tSpinner.getValue();
             int c = (Integer) cSpinner.getValue();
+            boolean useLargePrimes = largePrimeBox.isSelected();
+            boolean useRationalSplit = rationalSplitBox.isSelected();
+            SearchMode searchMode = (SearchMode) searchModeBox.getSelectedItem();
+            Trace.Level traceLevel = (Trace.Level) traceLevelBox.getSelectedItem();
 
-            if (!p.isProbablePrime(50)) {
+            if (!Primes.isPrime(p)) {
                 JOptionPane.showMessageDialog(this, "p должно быть простым числом!", "Ошибка", JOptionPane.ERROR_MESSAGE);
                 return;
             }
@@ -95,59 +125,24 @@ private void startCalculation() {
             resultField.setText("");
             calculateButton.setEnabled(false);
             calculateButton.setText("Вычисление...");
+            stopButton.setEnabled(true);
             progressBar.setValue(0);
             progressBar.setString("");
 
-            worker = new IndexCalculusWorker(p, g, a, t, c, logArea, progressBar);
-            worker.execute();
-
-            worker.addPropertyChangeListener(evt -> {
-                if ("state".equals(evt.getPropertyName()) && SwingWorker.StateValue.DONE.equals(evt.getNewValue())) {
-                    try {
-                        BigInteger result = worker.get();
-                        if (result != null) {
-                            resultField.setText(result.toString());
-                            progressBar.setValue(100);
-                            progressBar.setString("Готово!");
-                            calculateButton.setEnabled(true);
-                            calculateButton.setText("Вычислить x");
-                        }
-                    } catch (InterruptedException | ExecutionException e) {
-                        String errorMsg = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
-                        
-                        SpinnerNumberModel cModel = (SpinnerNumberModel) cSpinner.getModel();
-                        int currentC = (Integer) cModel.getValue();
-                        int nextC = currentC + 1;
-                        Integer maxC = (Integer) cModel.getMaximum();
-                        
-                        if (errorMsg.contains("Не удалось решить систему") && (maxC == null || nextC <= maxC)) {
-                            logArea.append(String.format("\n\n!!! АВТОПЕРЕЗАПУСК: %s !!!", errorMsg));
-                            logArea.append(String.format("Увеличиваем 'c' с %d до %d и пробуем снова...", currentC, nextC));
-                            cSpinner.setValue(nextC);
-                            
-                            Timer timer = new Timer(1500, new ActionListener() {
-                                @Override
-                                public void actionPerformed(ActionEvent ae) {
-                                    startCalculation(); 
-                                }
-                            });
-                            timer.setRepeats(false);
-                            timer.start();
-                            
-                        } else {
-                            resultField.setText("Ошибка");
-                            logArea.append(String.format("\n\n!!! КРИТИЧЕСКАЯ ОШИБКА: %s !!!", errorMsg));
-                            
-                            if (maxC != null && nextC > maxC) {
-                                logArea.append(String.format("\nДостигнут лимит 'c' (%d). Автоповтор остановлен.", maxC));
-                            }
-                            
-                            calculateButton.setEnabled(true); 
-                            calculateButton.setText("Вычислить x");
-                        }
-                    }
+            // При вырожденной системе воркер сам увеличивает 'c' до максимума спиннера,
+            // сохраняя уже найденные отношения, и сообщает новое значение свойством "c".
+            int maxC = (Integer) ((SpinnerNumberModel) cSpinner.getModel()).getMaximum();
+            IndexCalculusWorker current = new IndexCalculusWorker(p, g, a, t, c, maxC, useLargePrimes,
+                    useRationalSplit, searchMode, new Trace(traceLevel), logArea, progressBar);
+            worker = current;
+            current.addPropertyChangeListener(evt -> {
+                if (IndexCalculusWorker.C_PROPERTY.equals(evt.getPropertyName())) {
+                    cSpinner.setValue(evt.getNewValue());
+                } else if ("state".equals(evt.getPropertyName()) && SwingWorker.StateValue.DONE.equals(evt.getNewValue())) {
+                    finishCalculation(current);
                 }
             });
+            current.execute();
 
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Неверный формат числа.", "Ошибка", JOptionPane.ERROR_MESSAGE);
@@ -156,6 +151,28 @@ private void startCalculation() {
         }
     }
 
+    private void finishCalculation(IndexCalculusWorker finished) {
+        calculateButton.setEnabled(true);
+        calculateButton.setText("Вычислить x");
+        stopButton.setEnabled(false);
+
+        if (finished.isCancelled()) {
+            progressBar.setString("Остановлено");
+            logArea.append("\n\n!!! Вычисление остановлено пользователем !!!");
+            return;
+        }
+        try {
+            BigInteger result = finished.get();
+            resultField.setText(result.toString());
+            progressBar.setValue(100);
+            progressBar.setString("Готово!");
+        } catch (InterruptedException | ExecutionException e) {
+            String errorMsg = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+            resultField.setText("Ошибка");
+            logArea.append(String.format("\n\n!!! КРИТИЧЕСКАЯ ОШИБКА: %s !!!", errorMsg));
+        }
+    }
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(new Runnable() {
             @Override
@@ -166,34 +183,99 @@ private void startCalculation() {
     }
 }
 
-class IndexCalculusWorker extends SwingWorker<BigInteger, String> {
+class IndexCalculusWorker extends SwingWorker<BigInteger, Void> {
+
+    // Свойство, через которое GUI узнаёт об автоувеличении 'c'
+    static final String C_PROPERTY = "c";
 
     private static final BigInteger ZERO = BigInteger.ZERO;
     private static final BigInteger ONE = BigInteger.ONE;
+    private static final Trace.Level SUMMARY = Trace.Level.SUMMARY;
+    private static final Trace.Level FULL = Trace.Level.FULL;
     private static final long MAX_ITERATIONS = 1_000_000; 
+    // Граница для "большого" простого: L = (наибольшее простое базы) * LARGE_PRIME_MULTIPLIER
+    private static final int LARGE_PRIME_MULTIPLIER = 100;
+    // Столько первых простых базы делим пробным делением; остаток большей базы раскладывает ECM
+    private static final int TRIAL_PRIMES = 10;
 
     private final BigInteger p;
     private final BigInteger g;
     private final BigInteger a;
     private final int t;
-    private final int c;
+    private int c;
+    private final int maxC;
+    private final boolean useLargePrimes;
+    private final boolean useRationalSplit;
+    private final SearchMode searchMode;
     private final BigInteger pMinus1;
-    private final BigInteger maxIterBI = BigInteger.valueOf(MAX_ITERATIONS);
+    private final Random random = new Random();
 
+    private final Trace trace;
+    private long shownPosition = 0; // сколько событий журнала уже выведено в logArea
     private final JTextArea logArea;
     private final JProgressBar progressBar;
 
     private List<BigInteger> factorBase;
-    private List<Relation> allRelations;
+    private long[] basePrimes;
+    private RelationPool allRelations;
+    private RelationFilter.Result filtered;
+    // Курсор перебора k: сохраняется между досчётами отношений
+    private ExponentWalk relationWalk;
+    private long relationIter = 0;
     private BigInteger[] baseLogs;
 
-    public IndexCalculusWorker(BigInteger p, BigInteger g, BigInteger a, int t, int c, JTextArea logArea, JProgressBar progressBar) {
+    // Частичные отношения g^k ≡ (гладкое) * q, ключ - "большое" простое q
+    private final Map<BigInteger, Relation> partialRelations = new HashMap<>();
+    private BigInteger largePrimeBound;
+    private int partialCount = 0;
+    private int combinedCount = 0;
+
+    // Отношения с двумя большими простыми g^k ≡ (гладкое) * q1 * q2 (только с ECM): ждут,
+    // пока для q1 или q2 появится частичное отношение, ключ - каждое из двух простых
+    private final Map<BigInteger, List<DoublePartial>> doublePartials = new HashMap<>();
+    private int doubleCount = 0;
+
+    // Простые вне базы, найденные при разборе текущего кандидата, и их знак (1 - числитель,
+    // -1 - знаменатель); outsideCount > 2 - остаток не разобран до конца или простых больше двух
+    private final long[] outsidePrimes = new long[2];
+    private final int[] outsideSigns = new int[2];
+    private int outsideCount;
+
+    // Разложение текущего кандидата: индексы простых базы (по возрастанию) и показатели
+    private int[] factorIndex;
+    private int[] factorExponent;
+    private int factorCount;
+
+    // Режим дробей u/v: value ≡ u/v (mod p), |u|, |v| <= sqrt(p), v > 0.
+    // Знак u переносится в показатель: -1 ≡ g^((p-1)/2) для порождающего g.
+    private final BigInteger minusOneLog;
+    private final BigInteger splitBound;
+    private BigInteger splitU;
+    private BigInteger splitV;
+    private boolean cofactorInverted; // остаток (большое простое) стоит в знаменателе v
+    private BigInteger denominatorRest;
+
+    // Кофакторизация для баз больше TRIAL_PRIMES (иначе ecm == null)
+    private Ecm ecm;
+    private Map<Long, Integer> baseIndexOf;
+    private long ecmCalls = 0;
+
+    public IndexCalculusWorker(BigInteger p, BigInteger g, BigInteger a, int t, int c, int maxC, boolean useLargePrimes,
+                               boolean useRationalSplit, SearchMode searchMode, Trace trace,
+                               JTextArea logArea, JProgressBar progressBar) {
         this.p = p;
         this.g = g;
         this.a = a;
         this.t = t;
         this.c = c;
+        this.maxC = maxC;
+        this.useLargePrimes = useLargePrimes;
+        this.useRationalSplit = useRationalSplit;
+        this.searchMode = searchMode;
+        this.trace = trace;
         this.pMinus1 = p.subtract(ONE);
+        this.minusOneLog = pMinus1.shiftRight(1);
+        this.splitBound = p.sqrt();
         this.logArea = logArea;
         this.progressBar = progressBar;
     }
@@ -201,309 +283,803 @@ class IndexCalculusWorker extends SwingWorker<BigInteger, String> {
     @Override
     protected BigInteger doInBackground() throws Exception {
         
-        publish("--- 1. Выбираем факторную базу (t = " + t + ") ---");
+        log(SUMMARY, "--- 1. Выбираем факторную базу (t = " + t + ") ---");
         this.factorBase = generateFactorBase(t);
-        publish("S = " + factorBase.toString() + "\n");
+        this.basePrimes = factorBase.stream().mapToLong(BigInteger::longValueExact).toArray();
+        this.factorIndex = new int[t];
+        this.factorExponent = new int[t];
+        if (t > TRIAL_PRIMES) {
+            this.ecm = new Ecm();
+            this.baseIndexOf = new HashMap<>();
+            for (int j = 0; j < t; j++) {
+                baseIndexOf.put(factorBase.get(j).longValueExact(), j);
+            }
+        }
+        log(SUMMARY, "S = " + factorBase.toString() + "\n");
+        this.largePrimeBound = factorBase.get(t - 1).multiply(BigInteger.valueOf(LARGE_PRIME_MULTIPLIER));
+        if (useLargePrimes) {
+            log(SUMMARY, "Вариант больших простых: допускаем %s q <= %s вне базы\n",
+                    ecm != null ? "до двух множителей" : "один множитель", largePrimeBound);
+        }
+        if (ecm != null) {
+            log(SUMMARY, "Кофакторизация: пробное деление на первые %d простых базы, остаток - ECM (B1 = %d, до %d кривых)\n",
+                    TRIAL_PRIMES, Ecm.DEFAULT_B1, Ecm.DEFAULT_CURVES);
+        }
+        if (useRationalSplit) {
+            log(SUMMARY, "Режим дробей: g^k ≡ u/v (mod p), |u|, |v| <= %s; знак: -1 ≡ g^%s\n", splitBound, minusOneLog);
+        }
         setProgress(10, "Генерация базы...");
 
         int numRelationsToFind = t + c;
-        publish(String.format("--- 2-3. Ищем %d 'гладких' g^k (перебор k=1, 2, 3...) ---", numRelationsToFind));
-        this.allRelations = findRelations(numRelationsToFind);
+        log(SUMMARY, "--- 2-3. Ищем %d 'гладких' g^k (%s) ---", numRelationsToFind, searchMode.describe("k"));
+        this.allRelations = new RelationPool();
+        this.relationWalk = new ExponentWalk(ONE, g, p, searchMode, random);
+        findRelations(numRelationsToFind);
         setProgress(40, "Поиск отношений...");
 
-        publish(String.format("\n--- 4-5. Логарифмируем и решаем систему (mod %s) ---", pMinus1));
-        logRelations(); 
-
-        publish("\nРешение системы:");
-        publish("Ищем первую решаемую (невырожденную) t x t подсистему...");
-        this.baseLogs = solveSystemRobustly();
+        BigInteger[] coreLogs = solveWithRestarts();
+        int m = filtered.coreColumns.length;
+        this.baseLogs = new BigInteger[t];
+        for (int i = 0; i < m; i++) {
+            baseLogs[filtered.coreColumns[i]] = coreLogs[i];
+        }
+        RelationFilter.backSubstitute(filtered, baseLogs, pMinus1);
         
-        publish("\nРешение (логарифмы базы):");
+        log(SUMMARY, "\nРешение (логарифмы базы):");
         for (int i = 0; i < t; i++) {
-            publish(String.format("U_%d (log_g(%s)) = %s mod %s",
-                    i + 1, factorBase.get(i), baseLogs[i], pMinus1));
+            if (baseLogs[i] != null) {
+                log(SUMMARY, "U_%d (log_g(%s)) = %s mod %s",
+                        i + 1, factorBase.get(i), baseLogs[i], pMinus1);
+            } else {
+                log(SUMMARY, "U_%d (log_g(%s)) не определяется", i + 1, factorBase.get(i));
+            }
         }
         setProgress(70, "Решение СЛАУ...");
 
-        publish(String.format("\n--- 6-7. Ищем 'гладкое' a*g^s (перебор s=1, 2, 3...) ---", a));
+        log(SUMMARY, "\n--- 6-7. Ищем 'гладкое' a*g^s (%s) ---", searchMode.describe("s"));
         Relation finalRelation = findFinalRelation();
         String finalFactors = finalRelation.getFactorString(factorBase);
         
-        publish(String.format("\nНайдено при s = %s:", finalRelation.k));
-        publish(String.format("%s * %s^%s mod %s ≡ %s = %s",
-                a, g, finalRelation.k, p, finalRelation.value, finalFactors));
+        log(SUMMARY, "\nНайдено при s = %s:", finalRelation.k);
+        log(SUMMARY, "%s * %s^%s mod %s ≡ %s = %s",
+                a, g, finalRelation.k, p, finalRelation.value, finalFactors);
         setProgress(90, "Поиск для 'a'...");
 
-        publish("\n--- 8. Логарифмируем и вычисляем x ---");
-        publish(String.format("log_g(%s * g^%s) ≡ log_g(%s)", a, finalRelation.k, finalFactors));
-        publish(String.format("log_g(%s) + log_g(g^%s) ≡ log_g(%s)", a, finalRelation.k, finalFactors));
+        log(SUMMARY, "\n--- 8. Логарифмируем и вычисляем x ---");
+        log(SUMMARY, "log_g(%s * g^%s) ≡ log_g(%s)", a, finalRelation.k, finalFactors);
+        log(SUMMARY, "log_g(%s) + log_g(g^%s) ≡ log_g(%s)", a, finalRelation.k, finalFactors);
         
         BigInteger s = finalRelation.k;
         BigInteger sum = ZERO;
         StringBuilder sumLog = new StringBuilder();
 
-        for (int i = 0; i < t; i++) {
+        for (int pos = 0; pos < finalRelation.index.length; pos++) {
+            int i = finalRelation.index[pos];
             BigInteger pi = factorBase.get(i);
-            Integer ai_int = finalRelation.exponents.get(pi);
-            if (ai_int != null && ai_int > 0) {
-                BigInteger ai = BigInteger.valueOf(ai_int);
-                BigInteger log_pi = baseLogs[i];
-                sum = sum.add(ai.multiply(log_pi)).mod(pMinus1);
-                
-                if (sumLog.length() > 0) sumLog.append(" + ");
-                sumLog.append(String.format("%s*log_g(%s)", ai, pi));
-            }
+            BigInteger ai = BigInteger.valueOf(finalRelation.exponent[pos]);
+            BigInteger log_pi = baseLogs[i];
+            sum = sum.add(ai.multiply(log_pi)).mod(pMinus1);
+
+            if (sumLog.length() > 0) sumLog.append(" + ");
+            sumLog.append(String.format("%s*log_g(%s)", ai, pi));
         }
         
-        publish(String.format("x + %s ≡ %s (mod %s)", s, sumLog.toString(), pMinus1));
+        log(SUMMARY, "x + %s ≡ %s (mod %s)", s, sumLog.toString(), pMinus1);
         
         BigInteger x = sum.subtract(s).mod(pMinus1);
         
-        publish(String.format("x ≡ (%s) - %s ≡ %s (mod %s)", sumLog.toString(), s, x, pMinus1));
-        publish(String.format("x ≡ (%s) - %s ≡ %s (mod %s)", sum, s, x, pMinus1));
+        log(SUMMARY, "x ≡ (%s) - %s ≡ %s (mod %s)", sumLog.toString(), s, x, pMinus1);
+        log(SUMMARY, "x ≡ (%s) - %s ≡ %s (mod %s)", sum, s, x, pMinus1);
 
-        publish("\n--- ПРОВЕРКА ---");
+        log(SUMMARY, "\n--- ПРОВЕРКА ---");
         BigInteger check = g.modPow(x, p);
-        publish(String.format("%s^%s ≡ %s (mod %s)", g, x, check, p));
+        log(SUMMARY, "%s^%s ≡ %s (mod %s)", g, x, check, p);
         if (check.equals(a)) {
-            publish(String.format("Верно! %s ≡ %s.", check, a));
-            publish(String.format("\nОтвет: %s mod %s", x, p));
+            log(SUMMARY, "Верно! %s ≡ %s.", check, a);
+            log(SUMMARY, "\nОтвет: %s mod %s", x, p);
             return x;
         } else {
-            publish(String.format("ОШИБКА! %s != %s.", check, a));
+            log(SUMMARY, "ОШИБКА! %s != %s.", check, a);
             throw new Exception("Ошибка проверки. Алгоритм дал неверный ответ.");
         }
     }
 
     private List<BigInteger> generateFactorBase(int size) {
         List<BigInteger> base = new ArrayList<>(size);
-        BigInteger currentPrime = BigInteger.valueOf(2);
-        while (base.size() < size) {
-            base.add(currentPrime);
-            currentPrime = currentPrime.nextProbablePrime();
+        for (int prime : Primes.first(size)) {
+            base.add(BigInteger.valueOf(prime));
         }
         return base;
     }
 
-    private List<Relation> findRelations(int num) throws Exception {
-        List<Relation> foundRelations = new ArrayList<>();
-        int foundCount = 0;
+    /**
+     * Досчитывает отношения, пока их не станет num. Продолжает перебор k с места,
+     * где остановился прошлый вызов; найденные ранее отношения сохраняются.
+     */
+    private void findRelations(int num) throws Exception {
+        RelationPool foundRelations = allRelations;
+        int foundCount = foundRelations.size();
+        ExponentWalk walk = relationWalk;
         
-        for (BigInteger k = ONE; k.compareTo(maxIterBI) <= 0; k = k.add(ONE)) {
-            BigInteger gk = g.modPow(k, p);
-            
-            String logMsg = String.format("k = %-4s: %s^%s mod %s ≡ %-4s", k, g, k, p, gk);
+        while (foundCount < num && relationIter < MAX_ITERATIONS) {
+            checkCancelled();
+            long iter = ++relationIter;
+            if (iter > 1) walk.next();
+            BigInteger gk = walk.value();
+            BigInteger cofactor = factorCandidate(gk);
 
-            Map<BigInteger, Integer> exponents = new HashMap<>();
-            String factorString = trialFactor(gk, exponents);
-
-            if (factorString != null) {
-                Relation rel = new Relation(k, gk, exponents);
+            if (cofactor.equals(ONE)) {
+                BigInteger k = walk.exponent();
+                Relation rel = currentRelation(k, gk);
                 foundRelations.add(rel);
                 foundCount++;
-                publish(String.format("%s = %s (Найдено %d/%d)",
-                        logMsg, factorString, foundCount, num));
-            } else {
-                if (k.longValue() < 15 || k.longValue() % 100 == 0) {
-                     publish(String.format("%s (Пропуск, не раскладывается)", logMsg));
+                log(SUMMARY, "k = %-4s: %s^%s mod %s ≡ %-4s = %s (Найдено %d/%d)",
+                        k, g, k, p, gk, lazyFactors(rel, null), foundCount, num);
+            } else if (isLargePrime(cofactor)) {
+                BigInteger k = walk.exponent();
+                Relation rel = currentRelation(k, gk);
+                // q в знаменателе: храним обратное отношение, чтобы q всегда входило в степени +1
+                Relation normalized = cofactorInverted ? rel.inverse(p, pMinus1) : rel;
+                Relation partner = partialRelations.get(cofactor);
+                if (partner == null) {
+                    log(FULL, "k = %-4s: %s^%s mod %s ≡ %-4s = %s (Частичное, q = %s)",
+                            k, g, k, p, gk, lazyFactors(rel, cofactor), cofactor);
+                    storePartial(cofactor, normalized, num);
+                    foundCount = foundRelations.size();
+                } else {
+                    Relation combined = normalized.combine(partner, p, pMinus1);
+                    if (combined.isTrivial()) continue;
+                    foundRelations.add(combined);
+                    foundCount++;
+                    combinedCount++;
+                    log(SUMMARY, "k = %-4s: %s^%s mod %s ≡ %-4s = %s; делим на k = %s (общее q = %s): g^%s ≡ %s (Найдено %d/%d)",
+                            k, g, k, p, gk, lazyFactors(rel, cofactor), partner.k, cofactor,
+                            combined.k, combined.lazyFactorString(factorBase, null), foundCount, num);
                 }
-            }
-            
-            if (foundCount >= num) {
-                return foundRelations;
+            } else if (isDoubleLargePrime()) {
+                BigInteger k = walk.exponent();
+                Relation rel = currentRelation(k, gk);
+                DoublePartial pair = new DoublePartial(rel, outsidePrimes, outsideSigns, p, pMinus1);
+                log(FULL, "k = %-4s: %s^%s mod %s ≡ %-4s = %s (Частичное, q1 = %s, q2 = %s)",
+                        k, g, k, p, gk, lazyFactors(rel, cofactor), pair.q1, pair.q2);
+                addDoublePartial(pair, num);
+                foundCount = foundRelations.size();
+            } else if (trace.isFull() && (iter < 15 || iter % 100 == 0)) {
+                BigInteger k = walk.exponent();
+                log(FULL, "k = %-4s: %s^%s mod %s ≡ %-4s (Пропуск, не раскладывается)", k, g, k, p, gk);
             }
         }
+        if (useLargePrimes) {
+            log(SUMMARY, "Частичных отношений: %d, с двумя большими простыми: %d, склеено в полные: %d",
+                    partialCount, doubleCount, combinedCount);
+        }
+        logEcmStats();
+        if (foundCount >= num) {
+            return;
+        }
         throw new Exception("Не удалось найти " + num + " отношений за " + MAX_ITERATIONS + " итераций. Увеличьте 't'.");
     }
 
-    private void logRelations() {
-        for (int i = 0; i < allRelations.size(); i++) {
-            Relation rel = allRelations.get(i);
-            StringBuilder eq = new StringBuilder();
-            for (int j = 0; j < t; j++) {
-                BigInteger pj = factorBase.get(j);
-                int exp = rel.exponents.getOrDefault(pj, 0);
-                if (exp > 0) {
-                    if (eq.length() > 0) eq.append(" + ");
-                    String U_i = String.format("U_%d", j + 1);
-                    eq.append(exp == 1 ? U_i : String.format("%d*%s", exp, U_i));
+    /**
+     * Запоминает частичное отношение partial (q в степени +1). Отношения с двумя большими
+     * простыми, ждавшие q, сокращаются на него и дают частичные отношения для второго
+     * простого; те, в свою очередь, склеиваются с известными или запоминаются.
+     */
+    private void storePartial(BigInteger q, Relation partial, int num) {
+        Deque<Map.Entry<BigInteger, Relation>> queue = new ArrayDeque<>();
+        queue.add(Map.entry(q, partial));
+        while (!queue.isEmpty()) {
+            Map.Entry<BigInteger, Relation> next = queue.poll();
+            BigInteger prime = next.getKey();
+            Relation rel = next.getValue();
+            Relation partner = partialRelations.get(prime);
+            if (partner != null) {
+                Relation combined = rel.combine(partner, p, pMinus1);
+                if (combined.isTrivial()) continue;
+                allRelations.add(combined);
+                combinedCount++;
+                log(SUMMARY, "Цепочка через q = %s: g^%s ≡ %s (Найдено %d/%d)",
+                        prime, combined.k, combined.lazyFactorString(factorBase, null), allRelations.size(), num);
+                continue;
+            }
+            partialRelations.put(prime, rel);
+            partialCount++;
+            List<DoublePartial> waiting = doublePartials.remove(prime);
+            if (waiting == null) continue;
+            for (DoublePartial pair : waiting) {
+                BigInteger other = pair.other(prime);
+                List<DoublePartial> otherWaiting = doublePartials.get(other);
+                if (otherWaiting != null) {
+                    otherWaiting.remove(pair);
+                    if (otherWaiting.isEmpty()) doublePartials.remove(other);
                 }
+                queue.add(Map.entry(other, pair.reduce(prime, rel, p, pMinus1)));
             }
-            publish(String.format("Уравн. %-2d: %s ≡ %s", (i + 1), eq.toString(), rel.k));
         }
     }
 
-    private BigInteger[] solveSystemRobustly() throws Exception {
-        if (allRelations.size() < t) {
-            throw new Exception("Недостаточно уравнений (" + allRelations.size() + "<" + t + ")");
+    // Отношение с q1 * q2: сокращается сразу, если одно из простых уже известно, иначе ждёт
+    private void addDoublePartial(DoublePartial pair, int num) {
+        doubleCount++;
+        for (BigInteger q : new BigInteger[]{pair.q1, pair.q2}) {
+            Relation partial = partialRelations.get(q);
+            if (partial != null) {
+                storePartial(pair.other(q), pair.reduce(q, partial, p, pMinus1), num);
+                return;
+            }
         }
-
-        int n = allRelations.size();
-        int[] indices = new int[t];
-
-        return findCombinations(0, 0, n, indices);
+        doublePartials.computeIfAbsent(pair.q1, q -> new ArrayList<>()).add(pair);
+        doublePartials.computeIfAbsent(pair.q2, q -> new ArrayList<>()).add(pair);
     }
-    
-    private BigInteger[] findCombinations(int startIndex, int combinationIndex, int n, int[] indices) throws Exception {
-        if (combinationIndex == t) {
-            
-            return trySolvingCombination(indices);
-        }
 
-        if (startIndex >= n) {
-            return null; 
+    private void logFilter() {
+        log(SUMMARY, "\n--- Фильтрация отношений ---");
+        log(SUMMARY, "Дубликатов удалено: %d; одиночек отложено: %d; лишних отброшено: %d",
+                filtered.duplicates, filtered.deferred.size(), filtered.trimmed);
+        log(SUMMARY, "Основная система: %d уравнений, %d неизвестных",
+                filtered.core.size(), filtered.coreColumns.length);
+        if (trace.isEnabled(SUMMARY)) {
+            List<BigInteger> missing = new ArrayList<>();
+            for (int j = 0; j < t; j++) {
+                if (filtered.missing[j]) missing.add(factorBase.get(j));
+            }
+            if (!missing.isEmpty()) {
+                log(SUMMARY, "Не входят ни в одно отношение (логарифм не определить): %s", missing);
+            }
         }
+    }
 
-        for (int i = startIndex; i < n; i++) {
-            indices[combinationIndex] = i;
-            BigInteger[] solution = findCombinations(i + 1, combinationIndex + 1, n, indices);
-            if (solution != null) {
-                return solution; 
+    private void logRelations() {
+        RelationPool core = filtered.core;
+        for (int i = 0; i < core.size(); i++) {
+            StringBuilder eq = new StringBuilder();
+            for (int pos = core.rowStart(i); pos < core.rowEnd(i); pos++) {
+                appendTerm(eq, core.column(pos), core.exponent(pos));
             }
+            log(SUMMARY, "Уравн. %-2d: %s ≡ %s", (i + 1), eq.toString(), core.k(i));
         }
-        
-        if(startIndex == 0) {
-             throw new Exception("Не удалось решить систему. Все " + (c+1) + " подсистем вырождены. Увеличьте 'c'.");
+        for (int i = 0; i < filtered.deferred.size(); i++) {
+            Relation rel = filtered.deferred.get(i);
+            StringBuilder eq = new StringBuilder();
+            for (int pos = 0; pos < rel.index.length; pos++) {
+                appendTerm(eq, rel.index[pos], rel.exponent[pos]);
+            }
+            log(SUMMARY, "Отложено (для U_%d): %s ≡ %s", filtered.deferredColumns[i] + 1, eq.toString(), rel.k);
         }
-        return null;
     }
-    
-private BigInteger[] trySolvingCombination(int[] indices) {
-        StringBuilder sb = new StringBuilder("{"); 
-        for (int i = 0; i < indices.length; i++) {
-            sb.append(indices[i] + 1); 
-            if (i < indices.length - 1) {
-                sb.append(", "); 
+
+    private static void appendTerm(StringBuilder eq, int j, int exp) {
+        if (eq.length() > 0) eq.append(exp > 0 ? " + " : " - ");
+        else if (exp < 0) eq.append("-");
+        String U_i = String.format("U_%d", j + 1);
+        int absExp = Math.abs(exp);
+        eq.append(absExp == 1 ? U_i : String.format("%d*%s", absExp, U_i));
+    }
+
+    /**
+     * Фильтрует отношения и решает систему. Если система вырождена, увеличивает 'c'
+     * (не больше maxC), досчитывает недостающие отношения и сразу решает снова.
+     */
+    private BigInteger[] solveWithRestarts() throws Exception {
+        while (true) {
+            this.filtered = RelationFilter.filter(allRelations, t, c);
+            logFilter();
+
+            log(SUMMARY, "\n--- 4-5. Логарифмируем и решаем систему (mod %s) ---", pMinus1);
+            if (trace.isEnabled(SUMMARY)) {
+                logRelations();
+            }
+
+            int m = filtered.coreColumns.length;
+            log(SUMMARY, "\nРешение системы:");
+            log(SUMMARY, "Исключение Гаусса по всем %d уравнениям, неизвестных: %d...", filtered.core.size(), m);
+            try {
+                return solveSystemRobustly();
+            } catch (UnsolvableSystemException e) {
+                if (c >= maxC) {
+                    throw new Exception(e.getMessage() + " Достигнут лимит 'c' (" + maxC + "). Автоповтор остановлен.");
+                }
+                int nextC = c + 1;
+                log(SUMMARY, "\n!!! АВТОПЕРЕЗАПУСК: %s !!!", e.getMessage());
+                log(SUMMARY, "Увеличиваем 'c' с %d до %d: найденные отношения сохраняются, ищем недостающие...", c, nextC);
+                firePropertyChange(C_PROPERTY, c, nextC);
+                c = nextC;
+                log(SUMMARY, "\n--- 2-3. Досчитываем 'гладкие' g^k до %d ---", t + c);
+                findRelations(t + c);
             }
         }
-        sb.append("}"); 
-        
-        publish("...попытка решения с уравнениями " + sb.toString());
-        
-        BigInteger[][] A = new BigInteger[t][t];
+    }
 
-        BigInteger[] b = new BigInteger[t];
+    /**
+     * Решает основную систему после фильтрации: одно исключение Гаусса по модулю p-1 сразу
+     * по всем уравнениям ядра (их может быть больше, чем неизвестных).
+     * @return Логарифмы простых filtered.coreColumns (в том же порядке).
+     */
+    private BigInteger[] solveSystemRobustly() throws Exception {
+        RelationPool core = filtered.core;
+        int m = filtered.coreColumns.length;
+        if (m == 0) {
+            return new BigInteger[0];
+        }
+        int n = core.size();
+        if (n < m) {
+            throw new UnsolvableSystemException("Не удалось решить систему. Уравнений (" + n + ") меньше неизвестных (" + m + ").");
+        }
 
-        for (int i = 0; i < t; i++) {
-            Relation rel = allRelations.get(indices[i]);
-            b[i] = rel.k.mod(pMinus1);
-            for (int j = 0; j < t; j++) {
-                BigInteger pj = factorBase.get(j);
-                A[i][j] = BigInteger.valueOf(rel.exponents.getOrDefault(pj, 0)).mod(pMinus1);
-            }
+        int[] columnMap = new int[t];
+        Arrays.fill(columnMap, -1);
+        for (int i = 0; i < m; i++) {
+            columnMap[filtered.coreColumns[i]] = i;
         }
 
-        try {
-            BigInteger[] solution = solveLinearSystem(A, b);
-            publish("Успех! Система " + sb.toString() + " решена.");
-            return solution;
-        } catch (Exception e) {
-            publish("...неудача: " + e.getMessage() + ". Пробуем след. комбинацию.");
-            return null;
+        BigInteger[][] A = new BigInteger[n][m];
+        BigInteger[] b = new BigInteger[n];
+        for (int i = 0; i < n; i++) {
+            b[i] = core.k(i).mod(pMinus1);
+            core.fillRow(i, A[i], pMinus1, columnMap);
         }
+
+        BigInteger[] solution = solveLinearSystem(A, b, m);
+        log(SUMMARY, "Успех! Система %d x %d решена.", n, m);
+        return solution;
     }
-    
-    private BigInteger[] solveLinearSystem(BigInteger[][] A_in, BigInteger[] b_in) throws Exception {
-        BigInteger[][] A = new BigInteger[t][];
-        for(int i=0; i<t; i++) A[i] = A_in[i].clone();
-        BigInteger[] b = b_in.clone();
 
-        for (int i = 0; i < t; i++) {
-            BigInteger pivot = A[i][i];
-            BigInteger inv;
-            try {
-                inv = pivot.modInverse(pMinus1);
-            } catch (ArithmeticException e) {
-                int swapRow = -1;
-                for (int k = i + 1; k < t; k++) {
-                    if (!A[k][i].gcd(pMinus1).equals(ONE)) {
-                         swapRow = k;
-                         break;
-                    }
-                }
-                
-                if (swapRow != -1) {
-                    BigInteger[] tempA = A[i];
-                    A[i] = A[swapRow];
-                    A[swapRow] = tempA;
-                    BigInteger tempB = b[i];
-                    b[i] = b[swapRow];
-                    b[swapRow] = tempB;
-                    
-                    pivot = A[i][i];
-                    inv = pivot.modInverse(pMinus1); 
-                } else {
-                     throw new Exception("Матрица вырождена (НОД(" + pivot + ", " + pMinus1 + ") != 1)");
+    /**
+     * Гаусс-Жордан по модулю p-1 для системы n x m (n >= m). Ведущим в столбце берётся первый
+     * из оставшихся элементов, обратимый по модулю p-1 (строки переставляются), остальные
+     * строки исключаются. Массивы A и b изменяются.
+     * @return Первые m элементов b - значения неизвестных.
+     */
+    private BigInteger[] solveLinearSystem(BigInteger[][] A, BigInteger[] b, int m) throws UnsolvableSystemException {
+        int n = A.length;
+        for (int i = 0; i < m; i++) {
+            checkCancelled();
+            int pivotRow = -1;
+            for (int k = i; k < n; k++) {
+                if (A[k][i].gcd(pMinus1).equals(ONE)) {
+                    pivotRow = k;
+                    break;
                 }
             }
+            if (pivotRow == -1 && combinePivot(A, b, i, m)) {
+                pivotRow = i;
+            }
+            if (pivotRow == -1) {
+                throw new UnsolvableSystemException("Не удалось решить систему. В столбце " + i
+                        + " нет элемента, обратимого по модулю " + pMinus1 + ".");
+            }
+            if (pivotRow != i) {
+                BigInteger[] tempA = A[i];
+                A[i] = A[pivotRow];
+                A[pivotRow] = tempA;
+                BigInteger tempB = b[i];
+                b[i] = b[pivotRow];
+                b[pivotRow] = tempB;
+                log(FULL, "...столбец %d: ведущий элемент из уравнения %d", i, pivotRow + 1);
+            }
 
-            for (int j = i; j < t; j++) {
+            BigInteger inv = A[i][i].modInverse(pMinus1);
+            for (int j = i; j < m; j++) {
                 A[i][j] = A[i][j].multiply(inv).mod(pMinus1);
             }
             b[i] = b[i].multiply(inv).mod(pMinus1);
 
-            for (int k = 0; k < t; k++) {
+            for (int k = 0; k < n; k++) {
                 if (k == i) continue;
                 BigInteger factor = A[k][i];
                 if (factor.equals(ZERO)) continue;
 
-                for (int j = i; j < t; j++) {
+                for (int j = i; j < m; j++) {
                     A[k][j] = A[k][j].subtract(factor.multiply(A[i][j])).mod(pMinus1);
                 }
                 b[k] = b[k].subtract(factor.multiply(b[i])).mod(pMinus1);
             }
         }
-        return b;
+        return Arrays.copyOf(b, m);
     }
 
-    private Relation findFinalRelation() throws Exception {
-        for (BigInteger s = ONE; s.compareTo(maxIterBI) <= 0; s = s.add(ONE)) {
-            BigInteger ags = a.multiply(g.modPow(s, p)).mod(p);
-            
-            String logMsg = String.format("s = %-4s: %s*%s^%s mod %s ≡ %-4s", s, a, g, s, p, ags);
+    /**
+     * Ни один элемент столбца col не обратим по модулю p-1 (модуль составной), но обратимым
+     * может оказаться их НОД. Алгоритмом Евклида над строками col..n-1 собирает НОД столбца
+     * в строке col (остальные элементы столбца обнуляются). Преобразования обратимы, так что
+     * множество решений не меняется.
+     * @return true, если полученный ведущий элемент обратим.
+     */
+    private boolean combinePivot(BigInteger[][] A, BigInteger[] b, int col, int m) {
+        int n = A.length;
+        for (int k = col + 1; k < n; k++) {
+            // Шаг Евклида на паре строк: вычитаем из строки col кратное строки k и меняем их местами
+            while (!A[k][col].equals(ZERO)) {
+                BigInteger q = A[col][col].divide(A[k][col]);
+                for (int j = col; j < m; j++) {
+                    A[col][j] = A[col][j].subtract(q.multiply(A[k][j])).mod(pMinus1);
+                }
+                b[col] = b[col].subtract(q.multiply(b[k])).mod(pMinus1);
+                BigInteger[] tempA = A[col];
+                A[col] = A[k];
+                A[k] = tempA;
+                BigInteger tempB = b[col];
+                b[col] = b[k];
+                b[k] = tempB;
+            }
+            if (A[col][col].gcd(pMinus1).equals(ONE)) {
+                log(FULL, "...столбец %d: ведущий элемент собран из нескольких уравнений", col);
+                return true;
+            }
+        }
+        return false;
+    }
 
-            Map<BigInteger, Integer> exponents = new HashMap<>();
-            String factorString = trialFactor(ags, exponents);
+    private Relation findFinalRelation() throws Exception {
+        ExponentWalk walk = new ExponentWalk(a, g, p, searchMode, random);
+        for (long iter = 1; iter <= MAX_ITERATIONS; iter++, walk.next()) {
+            checkCancelled();
+            BigInteger ags = walk.value();
+            BigInteger cofactor = factorCandidate(ags);
             
-            if (factorString != null) {
-                publish(String.format("%s = %s (Найдено!)", logMsg, factorString));
-                return new Relation(s, ags, exponents);
-            } else {
-                if (s.longValue() < 15 || s.longValue() % 100 == 0) {
-                    publish(String.format("%s (Пропуск, не раскладывается)", logMsg));
-                }
+            if (cofactor.equals(ONE) && isDetermined(factorIndex, factorCount)) {
+                BigInteger s = walk.exponent();
+                Relation rel = currentRelation(s, ags);
+                log(SUMMARY, "s = %-4s: %s*%s^%s mod %s ≡ %-4s = %s (Найдено!)",
+                        s, a, g, s, p, ags, lazyFactors(rel, null));
+                return rel;
+            } else if (!cofactor.equals(ONE) && isLargePrime(cofactor) && partialRelations.containsKey(cofactor)) {
+                // a*g^s ≡ S1*q и g^k ≡ S2*q  =>  a*g^(s-k) ≡ S1/S2;
+                // если q в знаменателе (a*g^s ≡ S1/q), то a*g^(s+k) ≡ S1*S2
+                BigInteger s = walk.exponent();
+                Relation rel = currentRelation(s, ags);
+                Relation partner = partialRelations.get(cofactor);
+                Relation combined = rel.combine(cofactorInverted ? partner.inverse(p, pMinus1) : partner, p, pMinus1);
+                if (!isDetermined(combined.index, combined.index.length)) continue;
+                log(SUMMARY, "s = %-4s: %s*%s^%s mod %s ≡ %-4s = %s; %s g^%s (общее q = %s) (Найдено!)",
+                        s, a, g, s, p, ags, lazyFactors(rel, cofactor),
+                        cofactorInverted ? "умножаем на" : "делим на", partner.k, cofactor);
+                return combined;
+            } else if (trace.isFull() && (iter < 15 || iter % 100 == 0)) {
+                BigInteger s = walk.exponent();
+                log(FULL, "s = %-4s: %s*%s^%s mod %s ≡ %-4s (Пропуск, не раскладывается)", s, a, g, s, p, ags);
             }
         }
         throw new Exception("Не удалось найти 'гладкое' a*g^s за " + MAX_ITERATIONS + " итераций. Увеличьте 't'.");
     }
 
-    private String trialFactor(BigInteger num, Map<BigInteger, Integer> exponents) {
-        BigInteger n = new BigInteger(num.toByteArray());
-        StringBuilder sb = new StringBuilder();
+    /**
+     * Раскладывает кандидат value (≡ base * g^k) по факторной базе в буферы factorIndex/factorExponent.
+     * В режиме дробей value сначала записывается как u/v (mod p), и раскладываются обе половины
+     * размера ~sqrt(p): показатели знаменателя идут со знаком минус.
+     * @return Остаток после деления на все простые базы; ONE, если кандидат гладкий.
+     *         Если остаток есть только в знаменателе, выставляется cofactorInverted;
+     *         остатки обеих половин перемножаются (большим простым такое число уже не будет).
+     */
+    private BigInteger factorCandidate(BigInteger value) {
+        cofactorInverted = false;
+        if (!useRationalSplit) {
+            return trialFactor(value, ONE);
+        }
+        rationalSplit(value);
+        BigInteger rest = trialFactor(splitU.abs(), splitV);
+        if (!rest.equals(ONE) && denominatorRest.equals(ONE)) return rest;
+        if (rest.equals(ONE)) {
+            cofactorInverted = !denominatorRest.equals(ONE);
+            return denominatorRest;
+        }
+        return rest.multiply(denominatorRest);
+    }
+
+    /**
+     * Раскладывает дробь num/den по факторной базе в буферы factorIndex/factorExponent
+     * (num и den взаимно просты, поэтому каждое простое попадает не больше чем в одну половину).
+     * @return Остаток числителя; остаток знаменателя сохраняется в denominatorRest.
+     */
+    private BigInteger trialFactor(BigInteger num, BigInteger den) {
+        factorCount = 0;
+        outsideCount = 0;
+        BigInteger n = divideOut(num, 1);
+        denominatorRest = den.equals(ONE) ? ONE : divideOut(den, -1);
+        return n;
+    }
 
-        for (BigInteger prime : factorBase) {
+    /**
+     * Делит num на простые базы, добавляя показатели со знаком sign.
+     * Малая база делится целиком; у большой - только первые TRIAL_PRIMES простых,
+     * а остаток разбирает ECM.
+     * @return Часть num, не разложенная по базе.
+     */
+    private BigInteger divideOut(BigInteger num, int sign) {
+        int limit = ecm == null ? t : TRIAL_PRIMES;
+        BigInteger n = trialDivide(num, 0, limit, sign);
+        if (ecm == null || n.equals(ONE)) {
+            return n;
+        }
+        if (n.bitLength() > Ecm.MAX_BITS) {
+            BigInteger left = trialDivide(n, limit, t, sign);
+            if (!left.equals(ONE)) outsideCount = outsidePrimes.length + 1;
+            return left;
+        }
+        return splitCofactor(n.longValue(), sign);
+    }
+
+    private BigInteger trialDivide(BigInteger num, int from, int to, int sign) {
+        if (num.bitLength() < 64) {
+            return BigInteger.valueOf(trialDivide(num.longValue(), from, to, sign));
+        }
+        BigInteger n = num;
+        for (int j = from; j < to; j++) {
             if (n.equals(ONE)) break;
+            BigInteger prime = factorBase.get(j);
             int count = 0;
             while (n.mod(prime).equals(ZERO)) {
                 n = n.divide(prime);
                 count++;
             }
             if (count > 0) {
-                exponents.put(prime, count);
-                if (sb.length() > 0) sb.append(" * ");
-                sb.append(prime);
-                if (count > 1) sb.append("^").append(count);
+                addFactor(j, sign * count);
             }
         }
-        
-        return n.equals(ONE) ? sb.toString() : null;
+        return n;
     }
 
-    @Override
-    protected void process(List<String> chunks) {
-        for (String message : chunks) {
-            logArea.append(message + "\n");
+    // То же в машинных словах: num < 2^63, простые базы берутся из basePrimes
+    private long trialDivide(long num, int from, int to, int sign) {
+        long n = num;
+        for (int j = from; j < to && n != 1; j++) {
+            long prime = basePrimes[j];
+            int count = 0;
+            while (n % prime == 0) {
+                n /= prime;
+                count++;
+            }
+            if (count > 0) {
+                addFactor(j, sign * count);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Раскладывает кофактор (все его простые больше первых TRIAL_PRIMES простых базы):
+     * простые части ищутся в базе, составные делятся ECM. Простые вне базы записываются
+     * в outsidePrimes; разбор прекращается, как только их больше двух или одно из них
+     * больше largePrimeBound - такой кандидат уже не даст ни частичного отношения, ни пары.
+     * @return Произведение простых вне базы (и неразобранных частей).
+     */
+    private BigInteger splitCofactor(long cofactor, int sign) {
+        long rest = 1;
+        Deque<Long> work = new ArrayDeque<>();
+        work.push(cofactor);
+        while (!work.isEmpty()) {
+            long m = work.pop();
+            if (m == 1) continue;
+            if (Primes.isPrime(m)) {
+                Integer j = baseIndexOf.get(m);
+                if (j != null) {
+                    addFactor(j, sign);
+                    continue;
+                }
+                rest *= m;
+                if (outsideCount < outsidePrimes.length) {
+                    outsidePrimes[outsideCount] = m;
+                    outsideSigns[outsideCount] = sign;
+                }
+                outsideCount++;
+                if (!useLargePrimes || m > largePrimeBound.longValue() || outsideCount > outsidePrimes.length) {
+                    outsideCount = outsidePrimes.length + 1;
+                    while (!work.isEmpty()) rest *= work.pop();
+                    return BigInteger.valueOf(rest);
+                }
+                continue;
+            }
+            long root = (long) Math.sqrt((double) m);
+            while (root * root > m) root--;
+            while ((root + 1) * (root + 1) <= m) root++;
+            if (root * root == m) {
+                work.push(root);
+                work.push(root);
+                continue;
+            }
+            ecmCalls++;
+            long f = ecm.findFactor(m);
+            if (f == 0) {
+                // ECM не нашёл делителя - добиваем пробным делением на старшую часть базы
+                BigInteger left = trialDivide(BigInteger.valueOf(m), TRIAL_PRIMES, t, sign);
+                if (!left.equals(ONE)) outsideCount = outsidePrimes.length + 1;
+                rest *= left.longValue();
+                continue;
+            }
+            work.push(f);
+            work.push(m / f);
+        }
+        return BigInteger.valueOf(rest);
+    }
+
+    // Вставка с сохранением порядка индексов (ECM находит простые в произвольном порядке)
+    private void addFactor(int j, int exp) {
+        int pos = factorCount;
+        while (pos > 0 && factorIndex[pos - 1] > j) pos--;
+        if (pos > 0 && factorIndex[pos - 1] == j) {
+            factorExponent[pos - 1] += exp;
+            return;
+        }
+        System.arraycopy(factorIndex, pos, factorIndex, pos + 1, factorCount - pos);
+        System.arraycopy(factorExponent, pos, factorExponent, pos + 1, factorCount - pos);
+        factorIndex[pos] = j;
+        factorExponent[pos] = exp;
+        factorCount++;
+    }
+
+    private void logEcmStats() {
+        if (ecm == null) return;
+        log(SUMMARY, "ECM: вызовов %d, кривых %d, операций на кривых %d; делитель найден %d раз, неудач %d",
+                ecmCalls, ecm.getCurves(), ecm.getCurveOps(), ecm.getFound(), ecm.getFailed());
+    }
+
+    /**
+     * Рациональная реконструкция: расширенный алгоритм Евклида для (p, value) останавливается
+     * на первом остатке r_i <= sqrt(p). Инвариант r_i ≡ t_i * value (mod p) даёт
+     * value ≡ r_i / t_i, где и |r_i|, и |t_i| порядка sqrt(p).
+     * Результат: splitU (со знаком дроби) и splitV > 0.
+     */
+    private void rationalSplit(BigInteger value) {
+        if (p.bitLength() < 64) {
+            rationalSplit(value.longValue(), p.longValue(), splitBound.longValue());
+            return;
+        }
+        BigInteger r0 = p;
+        BigInteger r1 = value;
+        BigInteger t0 = ZERO;
+        BigInteger t1 = ONE;
+        while (r1.compareTo(splitBound) > 0) {
+            BigInteger[] qr = r0.divideAndRemainder(r1);
+            r0 = r1;
+            r1 = qr[1];
+            BigInteger tNext = t0.subtract(qr[0].multiply(t1));
+            t0 = t1;
+            t1 = tNext;
+        }
+        if (t1.signum() < 0) {
+            splitU = r1.negate();
+            splitV = t1.negate();
+        } else {
+            splitU = r1;
+            splitV = t1;
+        }
+    }
+
+    // Все простые разложения имеют известный логарифм
+    private boolean isDetermined(int[] index, int count) {
+        for (int i = 0; i < count; i++) {
+            if (baseLogs[index[i]] == null) return false;
+        }
+        return true;
+    }
+
+    // То же в машинных словах: |t_i| <= p, так что все промежуточные значения помещаются в long
+    private void rationalSplit(long value, long modulus, long bound) {
+        long r0 = modulus;
+        long r1 = value;
+        long t0 = 0;
+        long t1 = 1;
+        while (r1 > bound) {
+            long q = r0 / r1;
+            long r = r0 - q * r1;
+            r0 = r1;
+            r1 = r;
+            long tNext = t0 - q * t1;
+            t0 = t1;
+            t1 = tNext;
+        }
+        splitU = BigInteger.valueOf(t1 < 0 ? -r1 : r1);
+        splitV = BigInteger.valueOf(Math.abs(t1));
+    }
+
+    private Relation currentRelation(BigInteger k, BigInteger value) {
+        if (useRationalSplit && splitU.signum() < 0) {
+            // value ≡ -|u|/v  =>  g^((p-1)/2) * value ≡ |u|/v
+            k = k.add(minusOneLog).mod(pMinus1);
+            value = p.subtract(value);
+        }
+        return Relation.of(k, value, factorIndex, factorExponent, factorCount);
+    }
+
+    // Для журнала: в режиме дробей показываем u/v и разложение обеих половин (знак - множителем -1)
+    private Object lazyFactors(Relation rel, BigInteger largePrime) {
+        if (!useRationalSplit) {
+            return rel.lazyFactorString(factorBase, largePrime);
+        }
+        BigInteger u = splitU;
+        BigInteger v = splitV;
+        boolean inverted = cofactorInverted;
+        return new Object() {
+            @Override
+            public String toString() {
+                StringBuilder sb = new StringBuilder();
+                sb.append(u).append('/').append(v).append(" = ");
+                if (u.signum() < 0) sb.append("-1 * ");
+                String factors = rel.getFactorString(factorBase);
+                sb.append(factors.isEmpty() ? "1" : factors);
+                if (largePrime != null) {
+                    sb.append(" * ").append(largePrime);
+                    if (inverted) sb.append("^-1");
+                }
+                return sb.toString();
+            }
+        };
+    }
+
+    private boolean isLargePrime(BigInteger cofactor) {
+        return useLargePrimes
+                && cofactor.compareTo(largePrimeBound) <= 0
+                && Primes.isPrime(cofactor);
+    }
+
+    // Кандидат разобран ECM до двух разных простых вне базы, каждое не больше largePrimeBound
+    private boolean isDoubleLargePrime() {
+        return useLargePrimes && ecm != null && outsideCount == 2 && outsidePrimes[0] != outsidePrimes[1];
+    }
+
+    // cancel(true) прерывает поток, но BigInteger-арифметика не реагирует на прерывание -
+    // поэтому длинные циклы сами проверяют флаг и выходят
+    private void checkCancelled() {
+        if (isCancelled() || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Вычисление остановлено");
+        }
+    }
+
+    /**
+     * Отношение g^k ≡ S * q1 * q2^e2 (e2 = ±1), приведённое так, что q1 входит в степени +1.
+     * Большие простые в rel не хранятся, как и у частичных отношений.
+     */
+    private static final class DoublePartial {
+        final Relation rel;
+        final BigInteger q1;
+        final BigInteger q2;
+        final int e2;
+
+        DoublePartial(Relation rel, long[] primes, int[] signs, BigInteger p, BigInteger pMinus1) {
+            this.rel = signs[0] > 0 ? rel : rel.inverse(p, pMinus1);
+            this.q1 = BigInteger.valueOf(primes[0]);
+            this.q2 = BigInteger.valueOf(primes[1]);
+            this.e2 = signs[0] * signs[1];
+        }
+
+        BigInteger other(BigInteger q) {
+            return q.equals(q1) ? q2 : q1;
+        }
+
+        /**
+         * Сокращает на частичное отношение partial = S' * q (q - одно из q1, q2).
+         * @return Частичное отношение для второго простого, в степени +1.
+         */
+        Relation reduce(BigInteger q, Relation partial, BigInteger p, BigInteger pMinus1) {
+            // Делим на partial ту форму, где q в степени +1; второе простое остаётся в степени e2
+            Relation base = q.equals(q1) || e2 > 0 ? rel : rel.inverse(p, pMinus1);
+            Relation reduced = base.combine(partial, p, pMinus1);
+            return e2 > 0 ? reduced : reduced.inverse(p, pMinus1);
+        }
+    }
+
+    // Система вырождена по модулю p-1 - помогает досчитать ещё отношений
+    private static class UnsolvableSystemException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        UnsolvableSystemException(String message) {
+            super(message);
         }
+    }
+
+    // Запись в журнал; текст формируется только в process(), когда его показывают
+    private void log(Trace.Level level, String pattern, Object... args) {
+        if (!trace.isEnabled(level)) return;
+        trace.message(level, pattern, args);
+        publish();
+    }
+
+    @Override
+    protected void process(List<Void> chunks) {
+        StringBuilder sb = new StringBuilder();
+        shownPosition = trace.formatSince(shownPosition, sb);
+        if (sb.length() == 0) return;
+        logArea.append(sb.toString());
         logArea.setCaretPosition(logArea.getDocument().getLength());
     }
     
@@ -513,27 +1089,128 @@ private BigInteger[] trySolvingCombination(int[] indices) {
     }
 }
 
-class Relation {
-    final BigInteger k;
-    final BigInteger value;
-    final Map<BigInteger, Integer> exponents;
+enum SearchMode {
+    SEQUENTIAL("последовательно"),
+    RANDOM("случайно");
+
+    private final String title;
 
-    Relation(BigInteger k, BigInteger value, Map<BigInteger, Integer> exponents) {
-        this.k = k;
-        this.value = value;
-        this.exponents = exponents;
+    SearchMode(String title) {
+        this.title = title;
     }
-    
-    String getFactorString(List<BigInteger> base) {
-        StringBuilder sb = new StringBuilder();
-        for (BigInteger prime : base) {
-            int exp = exponents.getOrDefault(prime, 0);
-            if (exp > 0) {
-                if (sb.length() > 0) sb.append(" * ");
-                sb.append(prime);
-                if (exp > 1) sb.append("^").append(exp);
+
+    String describe(String var) {
+        return this == SEQUENTIAL
+                ? String.format("перебор %s=1, 2, 3...", var)
+                : String.format("случайные %s: k0 + r_1 + r_2 + ...", var);
+    }
+
+    @Override
+    public String toString() {
+        return title;
+    }
+}
+
+/**
+ * Перебор значений base * g^k mod p, где каждый следующий кандидат получается одним
+ * модульным умножением вместо полного modPow.
+ * SEQUENTIAL: k = 1, 2, 3, ... (шаг - умножение на g).
+ * RANDOM: k = k0 + r_1 + r_2 + ..., где k0 случайно, а прыжки r_j берутся из таблицы
+ * заранее вычисленных g^(r_j) - последовательность k не коррелирована с 1, 2, 3...
+ */
+class ExponentWalk {
+    private static final int JUMP_TABLE_SIZE = 32;
+    private static final long MAX_JUMP = 1L << 20;
+
+    private final BigInteger p;
+    private final BigInteger g;
+    private final BigInteger start;
+    private final long[] jumps;
+    private final BigInteger[] jumpPowers;
+    private final Random random;
+
+    // p помещается в long: шаги идут в машинных словах, BigInteger создаётся только в value()
+    private final ModArith.Modulus word;
+    private final long wordG;
+    private final long[] wordJumpPowers;
+
+    private long offset;
+    private BigInteger value;
+    private long wordValue;
+
+    ExponentWalk(BigInteger base, BigInteger g, BigInteger p, SearchMode mode, Random random) {
+        this.p = p;
+        this.g = g;
+        this.random = random;
+        BigInteger pMinus1 = p.subtract(BigInteger.ONE);
+
+        if (mode == SearchMode.RANDOM && pMinus1.compareTo(BigInteger.TWO) > 0) {
+            // k0 равномерно из [1, p-2]
+            BigInteger k0;
+            do {
+                k0 = new BigInteger(pMinus1.bitLength(), random);
+            } while (k0.signum() == 0 || k0.compareTo(pMinus1) >= 0);
+            this.start = k0;
+            this.offset = 0;
+            this.value = base.multiply(g.modPow(k0, p)).mod(p);
+
+            long jumpBound = Math.min(MAX_JUMP, pMinus1.min(BigInteger.valueOf(Long.MAX_VALUE)).longValue() - 1);
+            this.jumps = new long[JUMP_TABLE_SIZE];
+            this.jumpPowers = new BigInteger[JUMP_TABLE_SIZE];
+            for (int i = 0; i < JUMP_TABLE_SIZE; i++) {
+                jumps[i] = 1 + (long) (random.nextDouble() * jumpBound);
+                jumpPowers[i] = g.modPow(BigInteger.valueOf(jumps[i]), p);
+            }
+        } else {
+            this.start = BigInteger.ZERO;
+            this.offset = 1;
+            this.value = base.multiply(g).mod(p);
+            this.jumps = null;
+            this.jumpPowers = null;
+        }
+
+        this.word = ModArith.forModulus(p);
+        if (word != null) {
+            this.wordG = g.mod(p).longValue();
+            this.wordValue = value.longValue();
+            if (jumpPowers != null) {
+                this.wordJumpPowers = new long[JUMP_TABLE_SIZE];
+                for (int i = 0; i < JUMP_TABLE_SIZE; i++) {
+                    wordJumpPowers[i] = jumpPowers[i].longValue();
+                }
+            } else {
+                this.wordJumpPowers = null;
+            }
+        } else {
+            this.wordG = 0;
+            this.wordJumpPowers = null;
+        }
+    }
+
+    void next() {
+        if (jumps == null) {
+            offset++;
+            if (word != null) {
+                wordValue = word.mulMod(wordValue, wordG);
+            } else {
+                value = value.multiply(g).mod(p);
+            }
+        } else {
+            int j = random.nextInt(JUMP_TABLE_SIZE);
+            offset += jumps[j];
+            if (word != null) {
+                wordValue = word.mulMod(wordValue, wordJumpPowers[j]);
+            } else {
+                value = value.multiply(jumpPowers[j]).mod(p);
             }
         }
-        return sb.toString().trim();
     }
-}
\ No newline at end of file
+
+    BigInteger exponent() {
+        return start.signum() == 0 ? BigInteger.valueOf(offset) : start.add(BigInteger.valueOf(offset));
+    }
+
+    BigInteger value() {
+        return word != null ? BigInteger.valueOf(wordValue) : value;
+    }
+}
@@ -0,0 +1,104 @@
+// Файл: Relation.java
+// Отношение индексного метода: его строят IndexCalculusWorker и RelationPool,
+// а RelationFilter возвращает отложенные уравнения.
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Одно отношение base * g^k ≡ value ≡ ∏ p_j^e_j (mod p) в разреженном виде:
+ * index[i] - номер простого в факторной базе (по возрастанию), exponent[i] - его показатель.
+ */
+class Relation {
+    final BigInteger k;
+    final BigInteger value;
+    final int[] index;
+    final int[] exponent;
+
+    Relation(BigInteger k, BigInteger value, int[] index, int[] exponent) {
+        this.k = k;
+        this.value = value;
+        this.index = index;
+        this.exponent = exponent;
+    }
+
+    static Relation of(BigInteger k, BigInteger value, int[] index, int[] exponent, int count) {
+        return new Relation(k, value, Arrays.copyOf(index, count), Arrays.copyOf(exponent, count));
+    }
+
+    /**
+     * Склеивает два частичных отношения с общим большим простым q:
+     * g^k1 ≡ S1*q, g^k2 ≡ S2*q  =>  g^(k1-k2) ≡ S1/S2 (показатели могут стать отрицательными).
+     */
+    Relation combine(Relation other, BigInteger p, BigInteger pMinus1) {
+        int[] newIndex = new int[index.length + other.index.length];
+        int[] newExponent = new int[newIndex.length];
+        int i = 0, j = 0, n = 0;
+        while (i < index.length || j < other.index.length) {
+            int col;
+            int exp;
+            if (j >= other.index.length || (i < index.length && index[i] < other.index[j])) {
+                col = index[i];
+                exp = exponent[i++];
+            } else if (i >= index.length || other.index[j] < index[i]) {
+                col = other.index[j];
+                exp = -other.exponent[j++];
+            } else {
+                col = index[i];
+                exp = exponent[i++] - other.exponent[j++];
+            }
+            if (exp != 0) {
+                newIndex[n] = col;
+                newExponent[n] = exp;
+                n++;
+            }
+        }
+        BigInteger newK = k.subtract(other.k).mod(pMinus1);
+        BigInteger newValue = value.multiply(other.value.modInverse(p)).mod(p);
+        return of(newK, newValue, newIndex, newExponent, n);
+    }
+
+    /**
+     * Обратное отношение: g^k ≡ S  =>  g^(-k) ≡ S^(-1).
+     */
+    Relation inverse(BigInteger p, BigInteger pMinus1) {
+        int[] negated = new int[exponent.length];
+        for (int i = 0; i < exponent.length; i++) {
+            negated[i] = -exponent[i];
+        }
+        return new Relation(k.negate().mod(pMinus1), value.modInverse(p), index, negated);
+    }
+
+    // Отношение вида g^0 ≡ 1 не несёт информации
+    boolean isTrivial() {
+        return index.length == 0;
+    }
+
+    String getFactorString(List<BigInteger> base) {
+        return getFactorString(base, null);
+    }
+
+    String getFactorString(List<BigInteger> base, BigInteger largePrime) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < index.length; i++) {
+            if (sb.length() > 0) sb.append(" * ");
+            sb.append(base.get(index[i]));
+            if (exponent[i] != 1) sb.append("^").append(exponent[i]);
+        }
+        if (largePrime != null) {
+            if (sb.length() > 0) sb.append(" * ");
+            sb.append(largePrime);
+        }
+        return sb.toString().trim();
+    }
+
+    // Для журнала: строка разложения строится только при выводе события
+    Object lazyFactorString(List<BigInteger> base, BigInteger largePrime) {
+        return new Object() {
+            @Override
+            public String toString() {
+                return getFactorString(base, largePrime);
+            }
+        };
+    }
+}
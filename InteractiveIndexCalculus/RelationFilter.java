@@ -0,0 +1,228 @@
+// Файл: RelationFilter.java
+// Фильтрация отношений между сбором и решением СЛАУ:
+// 1) удаление дубликатов;
+// 2) итеративное удаление одиночек - простое базы, входящее только в одно отношение,
+//    не участвует в общей системе: это отношение откладывается и после решения системы
+//    даёт логарифм простого обратной подстановкой;
+// 3) обрезка лишних отношений, чтобы исключение шло по меньшей матрице.
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+class RelationFilter {
+
+    static final class Result {
+        final RelationPool core;          // отношения для основной системы
+        final int[] coreColumns;          // номера простых базы - неизвестные основной системы
+        final List<Relation> deferred;    // отложенные отношения в порядке удаления
+        final int[] deferredColumns;      // deferred.get(i) определяет простое deferredColumns[i]
+        final boolean[] missing;          // простое не встречается ни в одном отношении
+        final int duplicates;
+        final int trimmed;
+
+        Result(RelationPool core, int[] coreColumns, List<Relation> deferred, int[] deferredColumns,
+               boolean[] missing, int duplicates, int trimmed) {
+            this.core = core;
+            this.coreColumns = coreColumns;
+            this.deferred = deferred;
+            this.deferredColumns = deferredColumns;
+            this.missing = missing;
+            this.duplicates = duplicates;
+            this.trimmed = trimmed;
+        }
+    }
+
+    /**
+     * @param pool    Собранные отношения.
+     * @param columns Размер факторной базы.
+     * @param excess  Сколько лишних уравнений оставить сверх числа неизвестных основной системы.
+     */
+    static Result filter(RelationPool pool, int columns, int excess) {
+        // Все проходы идут по массивам пула; Relation создаются только для отложенных строк.
+        // --- 1. Дубликаты ---
+        int[] rows = new int[pool.size()];   // строки пула, прошедшие проверку
+        Set<RowKey> seen = new HashSet<>();
+        int n = 0;
+        int duplicates = 0;
+        for (int i = 0; i < pool.size(); i++) {
+            if (pool.rowStart(i) == pool.rowEnd(i) || !seen.add(new RowKey(pool, i))) {
+                duplicates++;
+            } else {
+                rows[n++] = i;
+            }
+        }
+
+        // Транспонированная матрица (тоже CSR): строки, в которые входит простое j,
+        // лежат в rowsOfColumn[columnStart[j]..columnStart[j+1])
+        int[] weight = new int[columns];
+        for (int r = 0; r < n; r++) {
+            for (int pos = pool.rowStart(rows[r]); pos < pool.rowEnd(rows[r]); pos++) {
+                weight[pool.column(pos)]++;
+            }
+        }
+        int[] columnStart = new int[columns + 1];
+        for (int j = 0; j < columns; j++) columnStart[j + 1] = columnStart[j] + weight[j];
+        int[] rowsOfColumn = new int[columnStart[columns]];
+        int[] fill = Arrays.copyOf(columnStart, columns);
+        for (int r = 0; r < n; r++) {
+            for (int pos = pool.rowStart(rows[r]); pos < pool.rowEnd(rows[r]); pos++) {
+                rowsOfColumn[fill[pool.column(pos)]++] = r;
+            }
+        }
+        boolean[] missing = new boolean[columns];
+        for (int j = 0; j < columns; j++) missing[j] = weight[j] == 0;
+
+        // --- 2. Одиночки ---
+        boolean[] alive = new boolean[n];
+        Arrays.fill(alive, true);
+        List<Relation> deferred = new ArrayList<>();
+        List<Integer> deferredColumns = new ArrayList<>();
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int j = 0; j < columns; j++) {
+            if (weight[j] == 1) queue.add(j);
+        }
+        while (!queue.isEmpty()) {
+            int col = queue.poll();
+            if (weight[col] != 1) continue;
+            int row = -1;
+            for (int i = columnStart[col]; i < columnStart[col + 1]; i++) {
+                if (alive[rowsOfColumn[i]]) {
+                    row = rowsOfColumn[i];
+                    break;
+                }
+            }
+            alive[row] = false;
+            deferred.add(pool.get(rows[row]));
+            deferredColumns.add(col);
+            for (int pos = pool.rowStart(rows[row]); pos < pool.rowEnd(rows[row]); pos++) {
+                int other = pool.column(pos);
+                weight[other]--;
+                if (weight[other] == 1) queue.add(other);
+            }
+        }
+
+        int coreCols = 0;
+        for (int j = 0; j < columns; j++) {
+            if (weight[j] > 0) coreCols++;
+        }
+        int coreRows = 0;
+        for (int r = 0; r < n; r++) {
+            if (alive[r]) coreRows++;
+        }
+
+        // --- 3. Лишние отношения ---
+        // Удаляем самые "тяжёлые" отношения, пока каждое их простое остаётся минимум в двух других,
+        // чтобы не потерять неизвестные и не породить новых одиночек.
+        int trimmed = 0;
+        while (coreRows > coreCols + excess) {
+            int best = -1;
+            int bestLength = -1;
+            for (int r = 0; r < n; r++) {
+                if (!alive[r]) continue;
+                boolean removable = true;
+                for (int pos = pool.rowStart(rows[r]); pos < pool.rowEnd(rows[r]); pos++) {
+                    if (weight[pool.column(pos)] < 3) {
+                        removable = false;
+                        break;
+                    }
+                }
+                int length = pool.rowEnd(rows[r]) - pool.rowStart(rows[r]);
+                if (removable && length > bestLength) {
+                    best = r;
+                    bestLength = length;
+                }
+            }
+            if (best < 0) break;
+            alive[best] = false;
+            for (int pos = pool.rowStart(rows[best]); pos < pool.rowEnd(rows[best]); pos++) {
+                weight[pool.column(pos)]--;
+            }
+            coreRows--;
+            trimmed++;
+        }
+
+        RelationPool core = new RelationPool();
+        for (int r = 0; r < n; r++) {
+            if (alive[r]) core.add(pool, rows[r]);
+        }
+        int[] coreColumns = new int[coreCols];
+        for (int j = 0, pos = 0; j < columns; j++) {
+            if (weight[j] > 0) coreColumns[pos++] = j;
+        }
+        return new Result(core, coreColumns, deferred,
+                deferredColumns.stream().mapToInt(Integer::intValue).toArray(),
+                missing, duplicates, trimmed);
+    }
+
+    /**
+     * Обратная подстановка отложенных отношений: e*x_col + Σ e_i*x_i ≡ k (mod order).
+     * Известные логарифмы лежат в logs (null - неизвестен); найденные дописываются туда же.
+     */
+    static void backSubstitute(Result result, BigInteger[] logs, BigInteger order) {
+        for (int i = result.deferred.size() - 1; i >= 0; i--) {
+            Relation rel = result.deferred.get(i);
+            int col = result.deferredColumns[i];
+            BigInteger rhs = rel.k;
+            BigInteger coeff = null;
+            boolean known = true;
+            for (int pos = 0; pos < rel.index.length; pos++) {
+                int j = rel.index[pos];
+                BigInteger e = BigInteger.valueOf(rel.exponent[pos]);
+                if (j == col) {
+                    coeff = e.mod(order);
+                } else if (logs[j] == null) {
+                    known = false;
+                    break;
+                } else {
+                    rhs = rhs.subtract(e.multiply(logs[j]));
+                }
+            }
+            if (known && coeff.gcd(order).equals(BigInteger.ONE)) {
+                logs[col] = rhs.multiply(coeff.modInverse(order)).mod(order);
+            }
+        }
+    }
+
+    // Строка пула как ключ для поиска дубликатов: сравниваются индексы и показатели
+    private static final class RowKey {
+        private final RelationPool pool;
+        private final int row;
+        private final int hash;
+
+        RowKey(RelationPool pool, int row) {
+            this.pool = pool;
+            this.row = row;
+            int h = 1;
+            for (int pos = pool.rowStart(row); pos < pool.rowEnd(row); pos++) {
+                h = 31 * (31 * h + pool.column(pos)) + pool.exponent(pos);
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RowKey)) return false;
+            RowKey that = (RowKey) o;
+            int start = pool.rowStart(row);
+            int length = pool.rowEnd(row) - start;
+            int otherStart = that.pool.rowStart(that.row);
+            if (that.pool.rowEnd(that.row) - otherStart != length) return false;
+            for (int i = 0; i < length; i++) {
+                if (pool.column(start + i) != that.pool.column(otherStart + i)
+                        || pool.exponent(start + i) != that.pool.exponent(otherStart + i)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+// Файл: RelationPool.java
+// Набор отношений g^k ≡ p_1^e_1 * ... * p_t^e_t в сжатом построчном виде (CSR):
+// строка i занимает позиции rowStart[i]..rowStart[i+1]-1 общих массивов
+// columns (индекс простого в факторной базе) и exponents (показатель).
+import java.math.BigInteger;
+import java.util.Arrays;
+
+class RelationPool {
+
+    private int size = 0;
+    private int[] rowStart = new int[17];
+    private int[] columns = new int[64];
+    private int[] exponents = new int[64];
+    private BigInteger[] ks = new BigInteger[16];
+    private BigInteger[] values = new BigInteger[16];
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Добавляет строку из первых count элементов index/exponent (индексы по возрастанию).
+     */
+    void add(BigInteger k, BigInteger value, int[] index, int[] exponent, int count) {
+        add(k, value, index, exponent, 0, count);
+    }
+
+    void add(Relation rel) {
+        add(rel.k, rel.value, rel.index, rel.exponent, rel.index.length);
+    }
+
+    // Копирует строку row другого пула без промежуточного Relation
+    void add(RelationPool other, int row) {
+        int start = other.rowStart[row];
+        add(other.ks[row], other.values[row], other.columns, other.exponents, start, other.rowStart[row + 1] - start);
+    }
+
+    private void add(BigInteger k, BigInteger value, int[] index, int[] exponent, int from, int count) {
+        if (size == ks.length) {
+            ks = Arrays.copyOf(ks, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            rowStart = Arrays.copyOf(rowStart, size * 2 + 1);
+        }
+        int start = rowStart[size];
+        int end = start + count;
+        if (end > columns.length) {
+            int capacity = Math.max(end, columns.length * 2);
+            columns = Arrays.copyOf(columns, capacity);
+            exponents = Arrays.copyOf(exponents, capacity);
+        }
+        System.arraycopy(index, from, columns, start, count);
+        System.arraycopy(exponent, from, exponents, start, count);
+        ks[size] = k;
+        values[size] = value;
+        size++;
+        rowStart[size] = end;
+    }
+
+    BigInteger k(int row) {
+        return ks[row];
+    }
+
+    BigInteger value(int row) {
+        return values[row];
+    }
+
+    int rowStart(int row) {
+        return rowStart[row];
+    }
+
+    int rowEnd(int row) {
+        return rowStart[row + 1];
+    }
+
+    int column(int pos) {
+        return columns[pos];
+    }
+
+    int exponent(int pos) {
+        return exponents[pos];
+    }
+
+    /**
+     * Заполняет плотную строку подсистемы: показатель при простом j (по модулю modulus)
+     * попадает в dense[columnMap[j]], столбцы с columnMap[j] = -1 пропускаются.
+     */
+    void fillRow(int row, BigInteger[] dense, BigInteger modulus, int[] columnMap) {
+        Arrays.fill(dense, BigInteger.ZERO);
+        for (int pos = rowStart[row]; pos < rowStart[row + 1]; pos++) {
+            int target = columnMap[columns[pos]];
+            if (target >= 0) {
+                dense[target] = BigInteger.valueOf(exponents[pos]).mod(modulus);
+            }
+        }
+    }
+
+    Relation get(int row) {
+        int start = rowStart[row];
+        int end = rowStart[row + 1];
+        return new Relation(ks[row], values[row],
+                Arrays.copyOfRange(columns, start, end), Arrays.copyOfRange(exponents, start, end));
+    }
+}
@@ -0,0 +1,177 @@
+// Файл: BigPolyArith.java
+// Многочлены над Z_p для p, не помещающихся в машинное слово (криптографические размеры):
+// коэффициенты - BigInteger, приведённые в [0, p). Polynomial1 переключается сюда сам,
+// так что алгоритмы факторизации работают без изменений при любом p.
+// - умножение подстановкой Кронекера: многочлены упаковываются в одно большое число
+//   (по слоту из целого числа байт на коэффициент), перемножаются BigInteger.multiply
+//   (Карацуба и Тоом-Кук внутри JDK) и распаковываются обратно - одно длинное умножение
+//   вместо deg^2 коротких;
+// - деление столбиком с одним обращением старшего коэффициента делителя;
+// - НОД и расширенный НОД алгоритмом Евклида, возведение в степень по модулю многочлена.
+// Многочлены - массивы коэффициентов без старших нулей, нулевой многочлен - пустой массив.
+import java.math.BigInteger;
+import java.util.Arrays;
+
+final class BigPolyArith {
+
+    // Ниже этой длины меньшего сомножителя упаковка дороже умножения столбиком
+    static final int KRONECKER_CUTOFF = 8;
+
+    static final BigInteger[] ZERO = new BigInteger[0];
+
+    private BigPolyArith() {
+    }
+
+    static BigInteger[] add(BigInteger p, BigInteger[] a, BigInteger[] b) {
+        if (a.length < b.length) {
+            BigInteger[] t = a; a = b; b = t;
+        }
+        BigInteger[] r = Arrays.copyOf(a, a.length);
+        for (int i = 0; i < b.length; i++) {
+            BigInteger s = r[i].add(b[i]);
+            r[i] = s.compareTo(p) >= 0 ? s.subtract(p) : s;
+        }
+        return trim(r);
+    }
+
+    static BigInteger[] subtract(BigInteger p, BigInteger[] a, BigInteger[] b) {
+        BigInteger[] r = Arrays.copyOf(a, Math.max(a.length, b.length));
+        for (int i = 0; i < r.length; i++) {
+            BigInteger x = i < a.length ? a[i] : BigInteger.ZERO;
+            if (i < b.length) {
+                x = x.subtract(b[i]);
+                if (x.signum() < 0) x = x.add(p);
+            }
+            r[i] = x;
+        }
+        return trim(r);
+    }
+
+    static BigInteger[] scale(BigInteger p, BigInteger[] a, BigInteger c) {
+        BigInteger[] r = new BigInteger[a.length];
+        for (int i = 0; i < a.length; i++) r[i] = a[i].multiply(c).mod(p);
+        return trim(r);
+    }
+
+    static BigInteger[] multiply(BigInteger p, BigInteger[] a, BigInteger[] b) {
+        if (a.length == 0 || b.length == 0) return ZERO;
+        if (Math.min(a.length, b.length) < KRONECKER_CUTOFF) return schoolbook(p, a, b);
+        // Коэффициент произведения меньше min(len) * (p-1)^2 - столько бит и отводится на слот
+        int bits = 2 * p.bitLength() + 32 - Integer.numberOfLeadingZeros(Math.min(a.length, b.length));
+        int slot = (bits + 7) / 8;
+        BigInteger product = pack(a, slot).multiply(pack(b, slot));
+        return unpack(p, product, slot, a.length + b.length - 1);
+    }
+
+    private static BigInteger[] schoolbook(BigInteger p, BigInteger[] a, BigInteger[] b) {
+        BigInteger[] r = new BigInteger[a.length + b.length - 1];
+        Arrays.fill(r, BigInteger.ZERO);
+        for (int i = 0; i < a.length; i++) {
+            if (a[i].signum() == 0) continue;
+            for (int j = 0; j < b.length; j++) {
+                r[i + j] = r[i + j].add(a[i].multiply(b[j]));
+            }
+        }
+        for (int i = 0; i < r.length; i++) r[i] = r[i].mod(p);
+        return trim(r);
+    }
+
+    // Число с коэффициентом a[i] в байтах слота i (младший коэффициент - младшие байты)
+    private static BigInteger pack(BigInteger[] a, int slot) {
+        byte[] buf = new byte[a.length * slot];
+        for (int i = 0; i < a.length; i++) {
+            byte[] c = a[i].toByteArray(); // возможен ведущий нулевой байт знака
+            int len = Math.min(c.length, slot);
+            int end = buf.length - i * slot;
+            System.arraycopy(c, c.length - len, buf, end - len, len);
+        }
+        return new BigInteger(1, buf);
+    }
+
+    private static BigInteger[] unpack(BigInteger p, BigInteger x, int slot, int count) {
+        byte[] buf = x.toByteArray();
+        BigInteger[] r = new BigInteger[count];
+        for (int i = 0; i < count; i++) {
+            int end = buf.length - i * slot;
+            int start = Math.max(0, end - slot);
+            r[i] = end <= 0 ? BigInteger.ZERO : new BigInteger(1, buf, start, end - start).mod(p);
+        }
+        return trim(r);
+    }
+
+    /**
+     * Частное и остаток a / b делением столбиком.
+     */
+    static BigInteger[][] divide(BigInteger p, BigInteger[] a, BigInteger[] b) {
+        if (b.length == 0) throw new ArithmeticException("Division by zero.");
+        if (a.length < b.length) return new BigInteger[][]{ZERO, a};
+        BigInteger[] r = Arrays.copyOf(a, a.length);
+        BigInteger[] q = new BigInteger[a.length - b.length + 1];
+        BigInteger leadInv = b[b.length - 1].modInverse(p);
+        for (int i = a.length - 1; i >= b.length - 1; i--) {
+            int shift = i - b.length + 1;
+            BigInteger c = r[i].multiply(leadInv).mod(p);
+            q[shift] = c;
+            if (c.signum() == 0) continue;
+            for (int j = 0; j < b.length; j++) {
+                r[shift + j] = r[shift + j].subtract(c.multiply(b[j])).mod(p);
+            }
+        }
+        return new BigInteger[][]{trim(q), trim(Arrays.copyOf(r, b.length - 1))};
+    }
+
+    static BigInteger[] remainder(BigInteger p, BigInteger[] a, BigInteger[] b) {
+        return divide(p, a, b)[1];
+    }
+
+    static BigInteger[] gcd(BigInteger p, BigInteger[] a, BigInteger[] b) {
+        while (b.length > 0) {
+            BigInteger[] r = remainder(p, a, b);
+            a = b;
+            b = r;
+        }
+        return a;
+    }
+
+    /**
+     * {g, s, t}: g - НОД (последний ненулевой остаток), s*a + t*b = g.
+     */
+    static BigInteger[][] extendedGcd(BigInteger p, BigInteger[] a, BigInteger[] b) {
+        BigInteger[] s0 = {BigInteger.ONE}, s1 = ZERO;
+        BigInteger[] t0 = ZERO, t1 = {BigInteger.ONE};
+        while (b.length > 0) {
+            BigInteger[][] qr = divide(p, a, b);
+            a = b;
+            b = qr[1];
+            BigInteger[] s = subtract(p, s0, multiply(p, qr[0], s1));
+            s0 = s1;
+            s1 = s;
+            BigInteger[] t = subtract(p, t0, multiply(p, qr[0], t1));
+            t0 = t1;
+            t1 = t;
+        }
+        return new BigInteger[][]{a, s0, t0};
+    }
+
+    /**
+     * base^e mod f слева направо по битам показателя.
+     */
+    static BigInteger[] powMod(BigInteger p, BigInteger[] base, BigInteger e, BigInteger[] f) {
+        if (f.length == 1) return ZERO;
+        BigInteger[] b = remainder(p, base, f);
+        BigInteger[] result = {BigInteger.ONE};
+        for (int bit = e.bitLength() - 1; bit >= 0; bit--) {
+            result = remainder(p, multiply(p, result, result), f);
+            if (e.testBit(bit)) {
+                result = remainder(p, multiply(p, result, b), f);
+            }
+        }
+        return result;
+    }
+
+    static BigInteger[] trim(BigInteger[] a) {
+        int len = a.length;
+        while (len > 0 && a[len - 1].signum() == 0) len--;
+        return len == a.length ? a : Arrays.copyOf(a, len);
+    }
+}
@@ -0,0 +1,146 @@
+// Файл: CantorZassenhaus.java
+// Полное разложение свободного от квадратов многочлена над GF(p) на неприводимые множители.
+// 1) Разложение по степеням (DDF): x^(p^i) - x делится на все неприводимые степени,
+//    делящей i, поэтому gcd(f, x^(p^i) - x) после удаления множителей меньших степеней -
+//    произведение всех неприводимых множителей степени ровно i. Степени Фробениуса
+//    x^(p^i) mod f считаются последовательно возведением в p-ю степень (Polynomial1.powMod).
+// 2) Расщепление произведения множителей одной степени d (EDF, Кантор-Цассенхаус):
+//    для случайного a многочлен a^((p^d - 1)/2) - 1 (при p = 2 - след a + a^2 + ... + a^(2^(d-1)))
+//    с вероятностью около 1/2 делит множители на две непустые части.
+// Ожидаемое время полиномиально по deg f и log p.
+// Объект можно использовать из нескольких потоков (java.util.Random потокобезопасен).
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
+
+final class CantorZassenhaus {
+
+    private final BigInteger p;
+    private final Polynomial1 x;
+    private final Polynomial1 one;
+    private final Random random;
+    private final RootFinder rootFinder; // множители степени 1 - расщепление Рабина
+
+    CantorZassenhaus(BigInteger characteristic) {
+        this(characteristic, new Random(characteristic.longValue())); // фиксированное зерно - воспроизводимые отчёты
+    }
+
+    CantorZassenhaus(BigInteger characteristic, Random random) {
+        this.p = characteristic;
+        this.x = new Polynomial1(new long[]{0, 1}, characteristic);
+        this.one = new Polynomial1(new long[]{1}, characteristic);
+        this.random = random;
+        this.rootFinder = new RootFinder(characteristic, random);
+    }
+
+    /**
+     * Неприводимые нормированные множители свободного от квадратов f.
+     */
+    List<Polynomial1> factor(Polynomial1 f) {
+        List<Polynomial1> factors = new ArrayList<>();
+        for (DegreeClass c : distinctDegree(f)) {
+            factors.addAll(equalDegree(c.product, c.degree));
+        }
+        return factors;
+    }
+
+    /**
+     * То же, но классы разных степеней расщепляются параллельно задачами ForkJoin.
+     * Разложение по степеням остаётся последовательным: каждая степень Фробениуса
+     * считается из предыдущей. Порядок множителей тот же, что у factor.
+     */
+    List<Polynomial1> factorInParallel(Polynomial1 f) {
+        List<ForkJoinTask<List<Polynomial1>>> tasks = new ArrayList<>();
+        for (DegreeClass c : distinctDegree(f)) {
+            tasks.add(ForkJoinTask.adapt(() -> equalDegree(c.product, c.degree)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+        List<Polynomial1> factors = new ArrayList<>();
+        for (ForkJoinTask<List<Polynomial1>> task : tasks) {
+            factors.addAll(task.join());
+        }
+        return factors;
+    }
+
+    /**
+     * Произведение всех неприводимых множителей степени degree.
+     */
+    static final class DegreeClass {
+        final Polynomial1 product;
+        final int degree;
+
+        DegreeClass(Polynomial1 product, int degree) {
+            this.product = product;
+            this.degree = degree;
+        }
+    }
+
+    List<DegreeClass> distinctDegree(Polynomial1 f) {
+        List<DegreeClass> classes = new ArrayList<>();
+        Polynomial1 rest = f.normalize();
+        Polynomial1 frobenius = x; // x^(p^i) mod rest
+        for (int i = 1; rest.degree() >= 2 * i; i++) {
+            frobenius = i == 1 ? Polynomial1.xPowMod(p, rest) : Polynomial1.powMod(frobenius, p, rest);
+            Polynomial1 g = Polynomial1.gcd(rest, frobenius.subtract(x), null).normalize();
+            if (!g.isConstant()) {
+                classes.add(new DegreeClass(g, i));
+                rest = Polynomial1.divide(rest, g, null)[0];
+                frobenius = Polynomial1.divide(frobenius, rest, null)[1];
+            }
+        }
+        // Оставшийся множитель степени d не имеет делителей степени <= d/2 - он неприводим
+        if (!rest.isConstant()) {
+            classes.add(new DegreeClass(rest, rest.degree()));
+        }
+        return classes;
+    }
+
+    /**
+     * Расщепление g (нормированного произведения различных неприводимых степени d).
+     */
+    List<Polynomial1> equalDegree(Polynomial1 g, int d) {
+        if (d == 1) return rootFinder.split(g);
+        List<Polynomial1> result = new ArrayList<>();
+        List<Polynomial1> pending = new ArrayList<>();
+        pending.add(g);
+        BigInteger exponent = p.pow(d).subtract(BigInteger.ONE).shiftRight(1);
+        while (!pending.isEmpty()) {
+            Polynomial1 h = pending.remove(pending.size() - 1);
+            if (h.degree() == d) {
+                result.add(h);
+                continue;
+            }
+            Polynomial1 split;
+            do {
+                Polynomial1 a = randomBelow(h.degree());
+                Polynomial1 b = p.equals(BigInteger.TWO) ? trace(a, d, h) : Polynomial1.powMod(a, exponent, h).subtract(one);
+                split = Polynomial1.gcd(h, b, null).normalize();
+            } while (split.isConstant() || split.degree() == h.degree());
+            pending.add(split);
+            pending.add(Polynomial1.divide(h, split, null)[0]);
+        }
+        return result;
+    }
+
+    // a + a^2 + a^4 + ... + a^(2^(d-1)) mod h: по модулю каждого неприводимого множителя
+    // это след из GF(2^d) в GF(2), то есть 0 или 1
+    private Polynomial1 trace(Polynomial1 a, int d, Polynomial1 h) {
+        Polynomial1 term = Polynomial1.divide(a, h, null)[1];
+        Polynomial1 sum = term;
+        for (int i = 1; i < d; i++) {
+            term = Polynomial1.powMod(term, p, h);
+            sum = sum.add(term);
+        }
+        return sum;
+    }
+
+    private Polynomial1 randomBelow(int degree) {
+        BigInteger[] coeffs = new BigInteger[degree];
+        for (int i = 0; i < degree; i++) {
+            coeffs[i] = RootFinder.randomResidue(p, random);
+        }
+        return new Polynomial1(coeffs, p);
+    }
+}
@@ -0,0 +1,188 @@
+// Файл: CoefficientField.java
+// Арифметика коэффициентов многочленов в Z_p без делений, p помещается в машинное слово:
+// - p < 2^32: умножение с редукцией Барретта (ModArith.Barrett, константы считаются один раз
+//   на модуль), произведения вычетов можно копить в long без редукции;
+// - нечётное p < 2^63: умножение Монтгомери через Math.multiplyHigh (ModArith.Montgomery),
+//   каждое произведение приводится сразу;
+// - сложение и вычитание вычетов условным вычитанием p вместо взятия остатка;
+// - таблица обратных для малых простых p (строится один раз приёмом Монтгомери);
+// - операции над целыми массивами коэффициентов - короткие счётные циклы без ветвлений
+//   по данным, которые JIT может развернуть и векторизовать.
+// Для остальных p многочлены считаются на BigInteger (BigPolyArith).
+// Объекты кэшируются по модулю, так что все многочлены по одному p делят одни таблицы.
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+final class CoefficientField {
+
+    static final int INVERSE_TABLE_LIMIT = 1 << 16;
+
+    private static final Map<Long, CoefficientField> CACHE = new HashMap<>();
+    private static volatile CoefficientField last;
+
+    private final long p;
+    private final BigInteger bigP;
+    private final ModArith.Barrett barrett;       // p < 2^32, иначе null
+    private final ModArith.Montgomery montgomery; // p >= 2^32, иначе null
+    private final long twoTo64; // 2^64 mod p - поправка для отрицательных long
+    private final int lazyProducts; // сколько произведений вычетов помещается в long до редукции
+    private volatile long[] inverses; // inverses[a] = a^(-1) mod p, строится при первом обращении (из любого потока)
+
+    /**
+     * Помещается ли арифметика по модулю p в машинное слово.
+     */
+    static boolean fits(BigInteger p) {
+        return p.bitLength() < 64 && fits(p.longValue());
+    }
+
+    static boolean fits(long p) {
+        return p < (1L << 32) || (p & 1) != 0;
+    }
+
+    static CoefficientField of(long p) {
+        CoefficientField f = last;
+        if (f != null && f.p == p) return f;
+        synchronized (CACHE) {
+            f = CACHE.computeIfAbsent(p, CoefficientField::new);
+        }
+        last = f;
+        return f;
+    }
+
+    private CoefficientField(long p) {
+        if (p < 2) throw new IllegalArgumentException("Модуль должен быть > 1: " + p);
+        if (!fits(p)) throw new IllegalArgumentException("Чётный модуль больше 2^32: " + p);
+        this.p = p;
+        this.bigP = BigInteger.valueOf(p);
+        if (p < (1L << 32)) {
+            this.barrett = new ModArith.Barrett(p);
+            this.montgomery = null;
+            long r = barrett.reduce(-1L) + 1;
+            this.twoTo64 = r == p ? 0 : r;
+        } else {
+            this.barrett = null;
+            this.montgomery = new ModArith.Montgomery(p);
+            this.twoTo64 = Long.remainderUnsigned(-1L, p) + 1; // < p, так как p не делит 2^64
+        }
+        // (p-1)^2 помещается в long только при p - 1 <= sqrt(2^63)
+        this.lazyProducts = p - 1 > 3037000499L ? 0
+                : (int) Math.min(Integer.MAX_VALUE, (Long.MAX_VALUE - p) / ((p - 1) * (p - 1)));
+    }
+
+    long modulus() {
+        return p;
+    }
+
+    BigInteger bigModulus() {
+        return bigP;
+    }
+
+    /**
+     * Сколько произведений вычетов можно прибавить к вычету в long без переполнения:
+     * для p < 2^16 - миллиарды, для p около 2^31 - два, для p > 2^31.5 - ни одного
+     * (тогда каждое произведение приводится сразу через mul).
+     */
+    int lazyProducts() {
+        return lazyProducts;
+    }
+
+    /**
+     * Остаток любого long (в том числе отрицательного) в диапазоне [0, p).
+     */
+    long reduce(long a) {
+        if (a >= 0 && a < p) return a;
+        long r = barrett != null ? barrett.reduce(a) : Long.remainderUnsigned(a, p);
+        // a как беззнаковое равно a + 2^64
+        return a >= 0 ? r : sub(r, twoTo64);
+    }
+
+    // a + b - p в long точно (лежит в (-p, p)), даже если a + b не помещается при p близком к 2^63
+    long add(long a, long b) {
+        long r = a + b - p;
+        return r < 0 ? r + p : r;
+    }
+
+    long sub(long a, long b) {
+        long r = a - b;
+        return r < 0 ? r + p : r;
+    }
+
+    long negate(long a) {
+        return a == 0 ? 0 : p - a;
+    }
+
+    long mul(long a, long b) {
+        return barrett != null ? barrett.reduce(a * b) : montgomery.mulMod(a, b);
+    }
+
+    long inverse(long a) {
+        if (a == 0) throw new ArithmeticException("0 не обратим по модулю " + p);
+        if (p < INVERSE_TABLE_LIMIT) {
+            long[] table = inverses;
+            if (table == null) table = buildInverseTable();
+            if (table != null) return table[(int) a];
+        }
+        return ModArith.inverse(a, p);
+    }
+
+    // Для составного p не все элементы обратимы - тогда таблицы нет
+    private synchronized long[] buildInverseTable() {
+        if (inverses != null || !Primes.isPrime(p)) return inverses;
+        long[] values = new long[(int) p - 1];
+        for (int i = 0; i < values.length; i++) values[i] = i + 1;
+        long[] inv = barrett.invertAll(values);
+        long[] table = new long[(int) p];
+        System.arraycopy(inv, 0, table, 1, inv.length);
+        inverses = table;
+        return table;
+    }
+
+    // ---- операции над массивами вычетов ----
+
+    // a[i] <- a[i] mod p для неотрицательных a[i] (отложенная редукция сумм произведений, p < 2^32)
+    void reduceRange(long[] a, int from, int to) {
+        for (int i = from; i < to; i++) a[i] = barrett.reduce(a[i]);
+    }
+
+    // dst[i] <- dst[i] + src[i]
+    void addTo(long[] dst, long[] src, int len) {
+        for (int i = 0; i < len; i++) {
+            long r = dst[i] + src[i] - p;
+            dst[i] = r < 0 ? r + p : r;
+        }
+    }
+
+    // dst[i] <- dst[i] - src[i]
+    void subtractFrom(long[] dst, long[] src, int len) {
+        for (int i = 0; i < len; i++) {
+            long r = dst[i] - src[i];
+            dst[i] = r < 0 ? r + p : r;
+        }
+    }
+
+    // dst[i] <- c * src[i]
+    void scale(long[] dst, long[] src, int len, long c) {
+        if (barrett == null) {
+            for (int i = 0; i < len; i++) dst[i] = montgomery.mulMod(src[i], c);
+            return;
+        }
+        for (int i = 0; i < len; i++) dst[i] = barrett.reduce(src[i] * c);
+    }
+
+    // dst[offset + i] <- dst[offset + i] - c * src[i]: шаг деления столбиком
+    void subtractMultiple(long[] dst, int offset, long[] src, int len, long c) {
+        long negC = negate(c);
+        if (barrett == null) {
+            for (int i = 0; i < len; i++) {
+                long r = dst[offset + i] + montgomery.mulMod(src[i], negC) - p;
+                dst[offset + i] = r < 0 ? r + p : r;
+            }
+            return;
+        }
+        for (int i = 0; i < len; i++) {
+            long r = dst[offset + i] + barrett.reduce(src[i] * negC) - p;
+            dst[offset + i] = r < 0 ? r + p : r;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+// Файл: Gf2PolyArith.java
+// Многочлены над GF(2) в упакованном виде: 64 коэффициента в одном long, коэффициент
+// при x^i - бит (i mod 64) слова i / 64. Polynomial1 переключается сюда сам при p = 2.
+// - сложение и вычитание - XOR слов;
+// - умножение без переносов: слово на слово оконным методом (таблица a * w для всех
+//   4-битных w, 16 поворотов вместо 64), над словами - столбик, выше KARATSUBA_CUTOFF слов -
+//   Карацуба (в характеристике 2 вычитания в ней превращаются в XOR);
+// - возведение в квадрат - раздвижка битов: (sum a_i x^i)^2 = sum a_i x^(2i);
+// - деление: вычитание сдвинутого делителя целыми словами, 64 битовых сдвига делителя
+//   считаются один раз;
+// - производная и корень степени 2 - маски и сжатие битов слова.
+// Многочлены - массивы слов без старших нулевых слов, нулевой многочлен - пустой массив.
+import java.math.BigInteger;
+import java.util.Arrays;
+
+final class Gf2PolyArith {
+
+    // Ниже этой длины (в словах) столбик быстрее Карацубы
+    static final int KARATSUBA_CUTOFF = 16;
+
+    static final long[] ZERO = new long[0];
+
+    private static final long EVEN_BITS = 0x5555555555555555L;
+
+    private Gf2PolyArith() {
+    }
+
+    static int degree(long[] a) {
+        if (a.length == 0) return -1;
+        return 64 * (a.length - 1) + 63 - Long.numberOfLeadingZeros(a[a.length - 1]);
+    }
+
+    static boolean testBit(long[] a, int i) {
+        int w = i >>> 6;
+        return w < a.length && (a[w] >>> (i & 63) & 1) != 0;
+    }
+
+    static long[] add(long[] a, long[] b) {
+        if (a.length < b.length) {
+            long[] t = a; a = b; b = t;
+        }
+        long[] r = Arrays.copyOf(a, a.length);
+        for (int i = 0; i < b.length; i++) r[i] ^= b[i];
+        return trim(r);
+    }
+
+    // ---- умножение ----
+
+    static long[] multiply(long[] a, long[] b) {
+        if (a.length == 0 || b.length == 0) return ZERO;
+        if (a.length < b.length) {
+            long[] t = a; a = b; b = t;
+        }
+        int aLen = a.length, bLen = b.length;
+        long[] out = new long[aLen + bLen];
+        if (bLen <= KARATSUBA_CUTOFF) {
+            schoolbook(a, 0, aLen, b, 0, bLen, out, 0);
+            return trim(out);
+        }
+        // a длиннее: куски a по bLen слов умножаются на b и складываются со сдвигом
+        long[] chunk = new long[bLen];
+        long[] part = new long[2 * bLen];
+        for (int start = 0; start < aLen; start += bLen) {
+            int len = Math.min(bLen, aLen - start);
+            System.arraycopy(a, start, chunk, 0, len);
+            Arrays.fill(chunk, len, bLen, 0);
+            karatsuba(chunk, 0, b, 0, bLen, part, 0);
+            int partLen = Math.min(2 * bLen, out.length - start);
+            for (int i = 0; i < partLen; i++) out[start + i] ^= part[i];
+        }
+        return trim(out);
+    }
+
+    /**
+     * out[oo..oo+aLen+bLen) = a * b столбиком по словам (прежнее содержимое затирается).
+     */
+    static void schoolbook(long[] a, int ao, int aLen, long[] b, int bo, int bLen, long[] out, int oo) {
+        Arrays.fill(out, oo, oo + aLen + bLen, 0);
+        long[] table = new long[16];
+        for (int i = 0; i < aLen; i++) {
+            long x = a[ao + i];
+            if (x == 0) continue;
+            fillTable(x, table);
+            for (int j = 0; j < bLen; j++) {
+                long y = b[bo + j];
+                if (y == 0) continue;
+                // произведение слов - 127 бит: младшее слово и старшее
+                long lo = table[(int) (y & 15)];
+                long hi = 0;
+                for (int s = 4; s < 64; s += 4) {
+                    long t = table[(int) ((y >>> s) & 15)];
+                    lo ^= t << s;
+                    hi ^= t >>> (64 - s);
+                }
+                // три старших бита x в таблицу не вошли
+                for (int k = 61; k < 64; k++) {
+                    long mask = -((x >>> k) & 1);
+                    lo ^= (y << k) & mask;
+                    hi ^= (y >>> (64 - k)) & mask;
+                }
+                out[oo + i + j] ^= lo;
+                out[oo + i + j + 1] ^= hi;
+            }
+        }
+    }
+
+    // table[w] = (младшие 61 бит x) * w без переносов, w < 16 - помещается в слово
+    private static void fillTable(long x, long[] table) {
+        long x0 = x & 0x1FFFFFFFFFFFFFFFL;
+        table[0] = 0;
+        table[1] = x0;
+        for (int w = 2; w < 16; w += 2) {
+            table[w] = table[w >>> 1] << 1;
+            table[w + 1] = table[w] ^ x0;
+        }
+    }
+
+    /**
+     * out[oo..oo+2n) = a[ao..ao+n) * b[bo..bo+n) методом Карацубы.
+     */
+    static void karatsuba(long[] a, int ao, long[] b, int bo, int n, long[] out, int oo) {
+        if (n <= KARATSUBA_CUTOFF) {
+            schoolbook(a, ao, n, b, bo, n, out, oo);
+            return;
+        }
+        int m = n / 2;  // младшие половины
+        int h = n - m;  // старшие, h >= m
+        // z0 = a0*b0 в out[oo..oo+2m), z2 = a1*b1 в out[oo+2m..oo+2n)
+        karatsuba(a, ao, b, bo, m, out, oo);
+        karatsuba(a, ao + m, b, bo + m, h, out, oo + 2 * m);
+
+        // z1 = (a0 + a1)(b0 + b1) + z0 + z2
+        long[] sa = Arrays.copyOfRange(a, ao + m, ao + n);
+        long[] sb = Arrays.copyOfRange(b, bo + m, bo + n);
+        for (int i = 0; i < m; i++) {
+            sa[i] ^= a[ao + i];
+            sb[i] ^= b[bo + i];
+        }
+        long[] z1 = new long[2 * h];
+        karatsuba(sa, 0, sb, 0, h, z1, 0);
+        for (int i = 0; i < 2 * m; i++) z1[i] ^= out[oo + i];
+        for (int i = 0; i < 2 * h; i++) z1[i] ^= out[oo + 2 * m + i];
+        for (int i = 0; i < 2 * h; i++) out[oo + m + i] ^= z1[i];
+    }
+
+    /**
+     * a^2: бит i переходит в бит 2i, каждое слово раздвигается в два.
+     */
+    static long[] square(long[] a) {
+        long[] r = new long[2 * a.length];
+        for (int i = 0; i < a.length; i++) {
+            r[2 * i] = spread(a[i] & 0xFFFFFFFFL);
+            r[2 * i + 1] = spread(a[i] >>> 32);
+        }
+        return trim(r);
+    }
+
+    // 32 младших бита x на чётные позиции слова
+    private static long spread(long x) {
+        x = (x | (x << 16)) & 0x0000FFFF0000FFFFL;
+        x = (x | (x << 8)) & 0x00FF00FF00FF00FFL;
+        x = (x | (x << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        x = (x | (x << 2)) & 0x3333333333333333L;
+        x = (x | (x << 1)) & EVEN_BITS;
+        return x;
+    }
+
+    // Обратное к spread: чётные биты x в 32 младших бита
+    private static long compress(long x) {
+        x &= EVEN_BITS;
+        x = (x | (x >>> 1)) & 0x3333333333333333L;
+        x = (x | (x >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+        x = (x | (x >>> 4)) & 0x00FF00FF00FF00FFL;
+        x = (x | (x >>> 8)) & 0x0000FFFF0000FFFFL;
+        x = (x | (x >>> 16)) & 0xFFFFFFFFL;
+        return x;
+    }
+
+    // ---- деление ----
+
+    /**
+     * Частное и остаток a / b.
+     */
+    static long[][] divide(long[] a, long[] b) {
+        int db = degree(b);
+        if (db < 0) throw new ArithmeticException("Division by zero.");
+        int da = degree(a);
+        if (da < db) return new long[][]{ZERO, a};
+        long[] r = Arrays.copyOf(a, a.length);
+        long[] q = new long[((da - db) >>> 6) + 1];
+        long[][] shifted = new long[64][]; // shifted[s] = b * x^s, по мере надобности
+        for (int i = da; i >= db; i--) {
+            long word = r[i >>> 6];
+            if (word == 0) {
+                i &= ~63; // всё слово нулевое - сразу к предыдущему
+                continue;
+            }
+            if ((word >>> (i & 63) & 1) == 0) continue;
+            int shift = i - db;
+            q[shift >>> 6] |= 1L << (shift & 63);
+            long[] bs = shifted[shift & 63];
+            if (bs == null) bs = shifted[shift & 63] = shiftLeft(b, shift & 63);
+            int w = shift >>> 6;
+            int len = Math.min(bs.length, r.length - w);
+            for (int k = 0; k < len; k++) r[w + k] ^= bs[k];
+        }
+        return new long[][]{trim(q), trim(r)};
+    }
+
+    static long[] remainder(long[] a, long[] b) {
+        return divide(a, b)[1];
+    }
+
+    // b * x^s, 0 <= s < 64, на одно слово длиннее b
+    private static long[] shiftLeft(long[] b, int s) {
+        long[] r = new long[b.length + 1];
+        if (s == 0) {
+            System.arraycopy(b, 0, r, 0, b.length);
+            return r;
+        }
+        for (int i = 0; i < b.length; i++) {
+            r[i] ^= b[i] << s;
+            r[i + 1] = b[i] >>> (64 - s);
+        }
+        return r;
+    }
+
+    static long[] gcd(long[] a, long[] b) {
+        while (b.length > 0) {
+            long[] r = remainder(a, b);
+            a = b;
+            b = r;
+        }
+        return a;
+    }
+
+    /**
+     * {g, s, t}: g - НОД (он же нормированный), s*a + t*b = g.
+     */
+    static long[][] extendedGcd(long[] a, long[] b) {
+        long[] s0 = {1}, s1 = ZERO;
+        long[] t0 = ZERO, t1 = {1};
+        while (b.length > 0) {
+            long[][] qr = divide(a, b);
+            a = b;
+            b = qr[1];
+            long[] s = add(s0, multiply(qr[0], s1));
+            s0 = s1;
+            s1 = s;
+            long[] t = add(t0, multiply(qr[0], t1));
+            t0 = t1;
+            t1 = t;
+        }
+        return new long[][]{a, s0, t0};
+    }
+
+    /**
+     * base^e mod f слева направо по битам показателя; квадраты - раздвижкой битов.
+     */
+    static long[] powMod(long[] base, BigInteger e, long[] f) {
+        if (degree(f) == 0) return ZERO;
+        long[] b = remainder(base, f);
+        long[] result = {1};
+        for (int bit = e.bitLength() - 1; bit >= 0; bit--) {
+            result = remainder(square(result), f);
+            if (e.testBit(bit)) {
+                result = remainder(multiply(result, b), f);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * x^e mod f: умножение на x - сдвиг на бит и не больше одного XOR с f.
+     */
+    static long[] xPowMod(BigInteger e, long[] f) {
+        int df = degree(f);
+        if (df == 0) return ZERO;
+        long[] result = {1};
+        for (int bit = e.bitLength() - 1; bit >= 0; bit--) {
+            result = remainder(square(result), f);
+            if (e.testBit(bit)) {
+                long[] shifted = trim(shiftLeft(result, 1));
+                result = testBit(shifted, df) ? add(shifted, f) : shifted;
+            }
+        }
+        return result;
+    }
+
+    // ---- производная и корень ----
+
+    // (sum a_i x^i)' = sum_{i нечётно} x^(i-1): нечётные биты сдвигаются на чётные места
+    static long[] derivative(long[] a) {
+        long[] r = new long[a.length];
+        for (int i = 0; i < a.length; i++) r[i] = (a[i] >>> 1) & EVEN_BITS;
+        return trim(r);
+    }
+
+    /**
+     * r, для которого r^2 = a; a должен состоять только из чётных степеней.
+     */
+    static long[] sqrt(long[] a) {
+        long[] r = new long[(a.length + 1) / 2];
+        for (int i = 0; i < a.length; i++) {
+            if ((a[i] & ~EVEN_BITS) != 0) throw new IllegalArgumentException("Polynomial is not a p-th power.");
+            r[i >>> 1] |= compress(a[i]) << (32 * (i & 1));
+        }
+        return trim(r);
+    }
+
+    static long[] trim(long[] a) {
+        int len = a.length;
+        while (len > 0 && a[len - 1] == 0) len--;
+        return len == a.length ? a : Arrays.copyOf(a, len);
+    }
+}
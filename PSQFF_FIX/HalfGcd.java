@@ -0,0 +1,164 @@
+// Файл: HalfGcd.java
+// НОД многочленов над Z_p половинным алгоритмом (half-GCD), O(M(n) log n).
+// hgcd(a, b) возвращает матрицу 2x2 из частных последовательности Евклида, которая переводит
+// (a, b) в пару соседних остатков (c, d) с deg c >= m > deg d, m = ceil(deg a / 2).
+// Частные зависят только от старших коэффициентов, поэтому матрица считается рекурсивно
+// по старшим половинам: два рекурсивных вызова на вдвое меньших многочленах плюс
+// несколько быстрых умножений (PolyMultiply). Остатки те же, что у алгоритма Евклида,
+// так что и НОД получается тот же, без нормировки.
+// Расширенный вариант накапливает произведение матриц и даёт коэффициенты Безу.
+// Многочлены - массивы коэффициентов без старших нулей, нулевой многочлен - пустой массив.
+import java.util.Arrays;
+
+final class HalfGcd {
+
+    // Ниже этой степени шаги деления Евклида дешевле рекурсии
+    static final int THRESHOLD = 128;
+
+    private static final long[] ZERO = new long[0];
+
+    private HalfGcd() {
+    }
+
+    static long[] gcd(CoefficientField f, long[] a, long[] b) {
+        return run(f, trim(a), trim(b), false)[0];
+    }
+
+    /**
+     * {g, s, t}: g - НОД (последний ненулевой остаток), s*a + t*b = g.
+     */
+    static long[][] extendedGcd(CoefficientField f, long[] a, long[] b) {
+        return run(f, trim(a), trim(b), true);
+    }
+
+    private static long[][] run(CoefficientField f, long[] a, long[] b, boolean extended) {
+        long[][] total = extended ? identity() : null;
+        if (b.length == 0) {
+            return new long[][]{a, one(), ZERO};
+        }
+        // Первый шаг деления обеспечивает deg a > deg b
+        long[][] qr = divide(f, a, b);
+        if (extended) total = step(f, qr[0], total);
+        a = b;
+        b = qr[1];
+        while (b.length > 0) {
+            if (b.length > THRESHOLD) {
+                long[][] m = hgcd(f, a, b);
+                long[][] ab = apply(f, m, a, b);
+                a = ab[0];
+                b = ab[1];
+                if (extended) total = multiply(f, m, total);
+                if (b.length == 0) break;
+            }
+            qr = divide(f, a, b);
+            if (extended) total = step(f, qr[0], total);
+            a = b;
+            b = qr[1];
+        }
+        return extended ? new long[][]{a, total[0], total[1]} : new long[][]{a};
+    }
+
+    // Матрица частных, после которой deg второго остатка < ceil(deg a / 2)
+    private static long[][] hgcd(CoefficientField f, long[] a, long[] b) {
+        int degA = a.length - 1;
+        int m = (degA + 1) / 2;
+        if (b.length - 1 < m) return identity();
+        if (degA < THRESHOLD) return euclidSteps(f, a, b, m);
+
+        long[][] r = hgcd(f, shift(a, m), shift(b, m));
+        long[][] cd = apply(f, r, a, b);
+        long[] c = cd[0];
+        long[] d = cd[1];
+        if (d.length - 1 < m) return r;
+
+        long[][] qe = divide(f, c, d);
+        r = step(f, qe[0], r);
+        long[] e = qe[1];
+        int k = 2 * m - (d.length - 1);
+        long[][] s = hgcd(f, shift(d, k), shift(e, k));
+        return multiply(f, s, r);
+    }
+
+    // Шаги деления, пока степень второго остатка не станет меньше m
+    private static long[][] euclidSteps(CoefficientField f, long[] a, long[] b, int m) {
+        long[][] r = identity();
+        while (b.length - 1 >= m) {
+            long[][] qr = divide(f, a, b);
+            r = step(f, qr[0], r);
+            a = b;
+            b = qr[1];
+        }
+        return r;
+    }
+
+    // ---- матрицы 2x2 {m00, m01, m10, m11} ----
+
+    private static long[][] identity() {
+        return new long[][]{one(), ZERO, ZERO, one()};
+    }
+
+    // [[0, 1], [1, -q]] * r
+    private static long[][] step(CoefficientField f, long[] q, long[][] r) {
+        return new long[][]{r[2], r[3],
+                sub(f, r[0], mul(f, q, r[2])), sub(f, r[1], mul(f, q, r[3]))};
+    }
+
+    // s * r
+    private static long[][] multiply(CoefficientField f, long[][] s, long[][] r) {
+        return new long[][]{
+                add(f, mul(f, s[0], r[0]), mul(f, s[1], r[2])),
+                add(f, mul(f, s[0], r[1]), mul(f, s[1], r[3])),
+                add(f, mul(f, s[2], r[0]), mul(f, s[3], r[2])),
+                add(f, mul(f, s[2], r[1]), mul(f, s[3], r[3]))};
+    }
+
+    // m * (a, b)
+    private static long[][] apply(CoefficientField f, long[][] m, long[] a, long[] b) {
+        return new long[][]{
+                add(f, mul(f, m[0], a), mul(f, m[1], b)),
+                add(f, mul(f, m[2], a), mul(f, m[3], b))};
+    }
+
+    // ---- действия над массивами ----
+
+    private static long[] one() {
+        return new long[]{1};
+    }
+
+    private static long[][] divide(CoefficientField f, long[] a, long[] b) {
+        if (a.length < b.length) return new long[][]{ZERO, a};
+        long[][] qr = new PolyModulus(f, b).divide(a, a.length);
+        return new long[][]{trim(qr[0]), trim(qr[1])};
+    }
+
+    private static long[] mul(CoefficientField f, long[] a, long[] b) {
+        if (a.length == 0 || b.length == 0) return ZERO;
+        return trim(PolyMultiply.multiply(f, a, a.length, b, b.length));
+    }
+
+    private static long[] add(CoefficientField f, long[] a, long[] b) {
+        if (a.length < b.length) {
+            long[] t = a; a = b; b = t;
+        }
+        long[] r = Arrays.copyOf(a, a.length);
+        f.addTo(r, b, b.length);
+        return trim(r);
+    }
+
+    private static long[] sub(CoefficientField f, long[] a, long[] b) {
+        long[] r = Arrays.copyOf(a, Math.max(a.length, b.length));
+        f.subtractFrom(r, b, b.length);
+        return trim(r);
+    }
+
+    // a div x^k
+    private static long[] shift(long[] a, int k) {
+        return a.length <= k ? ZERO : Arrays.copyOfRange(a, k, a.length);
+    }
+
+    private static long[] trim(long[] a) {
+        int len = a.length;
+        while (len > 0 && a[len - 1] == 0) len--;
+        return len == a.length ? a : Arrays.copyOf(a, len);
+    }
+}
@@ -0,0 +1,177 @@
+// Файл: Ntt.java
+// Умножение многочленов над Z_p числовым преобразованием Фурье (NTT), O(n log n).
+// p произвольно, поэтому свёртка считается по нескольким "удобным" простым вида c*2^k + 1,
+// в которых есть корни из единицы степени 2^k, и восстанавливается по КТО (схема Гарнера).
+// Коэффициенты свёртки меньше n * (p-1)^2: для p < 2^31 это меньше 2^85, и хватает трёх
+// простых; для p до 2^63 - меньше 2^149, и берётся до шести (их произведение около 2^177).
+// Для малых p и коротких сомножителей берётся одно или два простых.
+// Таблицы корней кэшируются по простому и длине преобразования.
+import java.util.HashMap;
+import java.util.Map;
+
+final class Ntt {
+
+    static final int MAX_LOG = 23; // 2^23 - наибольшая длина, общая для всех простых
+
+    private static final Prime[] PRIMES = {
+            new Prime(998244353L, 3),   // 119 * 2^23 + 1
+            new Prime(167772161L, 3),   // 5 * 2^25 + 1
+            new Prime(469762049L, 3),   // 7 * 2^26 + 1
+            new Prime(754974721L, 11),  // 45 * 2^24 + 1
+            new Prime(2013265921L, 31), // 15 * 2^27 + 1
+            new Prime(1811939329L, 13), // 27 * 2^26 + 1
+    };
+
+    // INVERSES[j][i] = m_i^(-1) mod m_j для i < j - константы схемы Гарнера
+    private static final long[][] INVERSES = new long[PRIMES.length][];
+
+    static {
+        for (int j = 0; j < PRIMES.length; j++) {
+            INVERSES[j] = new long[j];
+            for (int i = 0; i < j; i++) INVERSES[j][i] = ModArith.inverse(PRIMES[i].m, PRIMES[j].m);
+        }
+    }
+
+    private Ntt() {
+    }
+
+    static boolean fits(int aLen, int bLen) {
+        return aLen + bLen - 1 <= (1 << MAX_LOG);
+    }
+
+    /**
+     * Произведение a[0..aLen) * b[0..bLen) длины aLen + bLen - 1, коэффициенты приведены по f.
+     */
+    static long[] multiply(CoefficientField f, long[] a, int aLen, long[] b, int bLen) {
+        int resultLen = aLen + bLen - 1;
+        int log = 32 - Integer.numberOfLeadingZeros(resultLen - 1);
+        int n = 1 << log;
+
+        // Сколько простых нужно, чтобы их произведение превзошло любой коэффициент свёртки
+        double bound = Math.log(f.modulus() - 1.0) * 2 + Math.log(Math.min(aLen, bLen));
+        int primes = 1;
+        double have = Math.log(PRIMES[0].m);
+        while (primes < PRIMES.length && have <= bound) {
+            have += Math.log(PRIMES[primes].m);
+            primes++;
+        }
+
+        long[][] residues = new long[primes][];
+        for (int k = 0; k < primes; k++) {
+            Prime q = PRIMES[k];
+            long[] fa = new long[n];
+            long[] fb = new long[n];
+            for (int i = 0; i < aLen; i++) fa[i] = q.barrett.reduce(a[i]);
+            for (int i = 0; i < bLen; i++) fb[i] = q.barrett.reduce(b[i]);
+            q.transform(fa, log, false);
+            q.transform(fb, log, false);
+            for (int i = 0; i < n; i++) fa[i] = q.barrett.mulMod(fa[i], fb[i]);
+            q.transform(fa, log, true);
+            residues[k] = fa;
+        }
+        return combine(f, residues, primes, resultLen);
+    }
+
+    // Схема Гарнера: x = x0 + x1*m0 + x2*m0*m1 + ..., цифры x_j < m_j, сумма сразу по модулю p
+    private static long[] combine(CoefficientField f, long[][] r, int primes, int len) {
+        long[] out = new long[len];
+        if (primes == 1) {
+            for (int i = 0; i < len; i++) out[i] = f.reduce(r[0][i]);
+            return out;
+        }
+        long[] radix = new long[primes]; // m0*...*m_{j-1} mod p
+        radix[0] = 1 % f.modulus();
+        for (int j = 1; j < primes; j++) radix[j] = f.mul(radix[j - 1], f.reduce(PRIMES[j - 1].m));
+        // Цифры x_j пишутся на место r[j]; циклы по коэффициентам внутренние - короткие и ровные
+        for (int j = 0; j < primes; j++) {
+            Prime q = PRIMES[j];
+            long[] rj = r[j];
+            for (int k = 0; k < j; k++) {
+                long[] xk = r[k];
+                long inv = INVERSES[j][k];
+                for (int i = 0; i < len; i++) {
+                    rj[i] = q.barrett.mulMod(sub(rj[i], q.barrett.reduce(xk[i]), q.m), inv);
+                }
+            }
+            long m = radix[j];
+            for (int i = 0; i < len; i++) {
+                out[i] = f.add(out[i], f.mul(f.reduce(rj[i]), m));
+            }
+        }
+        return out;
+    }
+
+    private static long sub(long a, long b, long m) {
+        long r = a - b;
+        return r < 0 ? r + m : r;
+    }
+
+    private static final class Prime {
+        final long m;
+        final ModArith.Barrett barrett;
+        private final long generator;
+        private final Map<Integer, long[][]> tables = new HashMap<>(); // log -> {корни, обратные корни, 1/n}
+
+        Prime(long m, long generator) {
+            this.m = m;
+            this.barrett = new ModArith.Barrett(m);
+            this.generator = generator;
+        }
+
+        // roots[j] = w^j, w - первообразный корень степени 2^log
+        private synchronized long[][] tables(int log) {
+            long[][] t = tables.get(log);
+            if (t != null) return t;
+            int n = 1 << log;
+            long w = barrett.powMod(generator, (m - 1) >> log);
+            long wInv = ModArith.inverse(w, m);
+            long[] roots = new long[Math.max(1, n / 2)];
+            long[] invRoots = new long[roots.length];
+            roots[0] = 1;
+            invRoots[0] = 1;
+            for (int j = 1; j < roots.length; j++) {
+                roots[j] = barrett.mulMod(roots[j - 1], w);
+                invRoots[j] = barrett.mulMod(invRoots[j - 1], wInv);
+            }
+            t = new long[][]{roots, invRoots, {ModArith.inverse(n, m)}};
+            tables.put(log, t);
+            return t;
+        }
+
+        // Итеративное преобразование Кули-Тьюки на месте (длина 2^log)
+        void transform(long[] a, int log, boolean inverse) {
+            int n = 1 << log;
+            long[][] t = tables(log);
+            long[] roots = inverse ? t[1] : t[0];
+
+            for (int i = 1, j = 0; i < n; i++) {
+                int bit = n >> 1;
+                for (; (j & bit) != 0; bit >>= 1) j ^= bit;
+                j |= bit;
+                if (i < j) {
+                    long tmp = a[i];
+                    a[i] = a[j];
+                    a[j] = tmp;
+                }
+            }
+            for (int len = 2; len <= n; len <<= 1) {
+                int half = len >> 1;
+                int stride = n / len;
+                for (int start = 0; start < n; start += len) {
+                    for (int k = 0; k < half; k++) {
+                        long u = a[start + k];
+                        long v = barrett.mulMod(a[start + k + half], roots[k * stride]);
+                        long s = u + v;
+                        a[start + k] = s >= m ? s - m : s;
+                        long d = u - v;
+                        a[start + k + half] = d < 0 ? d + m : d;
+                    }
+                }
+            }
+            if (inverse) {
+                long nInv = t[2][0];
+                for (int i = 0; i < n; i++) a[i] = barrett.mulMod(a[i], nInv);
+            }
+        }
+    }
+}
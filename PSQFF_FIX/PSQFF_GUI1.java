@@ -3,12 +3,18 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.math.BigInteger;
+import java.util.concurrent.ExecutionException;
 
 public class PSQFF_GUI1 extends JFrame {
 
     private final JTextField polynomialField;
     private final JTextField modulusField;
     private final JTextArea resultArea;
+    private final JButton factorButton;
+    private final JCheckBox yunBox = new JCheckBox("Алгоритм Юна", false);
+    private final JCheckBox rootsOnlyBox = new JCheckBox("Только корни", false);
+    private final JCheckBox parallelBox = new JCheckBox("Параллельно", false);
 
     public PSQFF_GUI1() {
         setTitle("Алгоритм факторизации многочленов PSQFF");
@@ -22,8 +28,8 @@ public class PSQFF_GUI1 extends JFrame {
 
         // Ставим по умолчанию проблемный пример
         polynomialField = new JTextField("x^5 + 5x^3 + 4x^2 + 2x + 4");
-        modulusField = new JTextField("7", 3);
-        JButton factorButton = new JButton("Факторизовать");
+        modulusField = new JTextField("7", 12);
+        factorButton = new JButton("Факторизовать");
 
         Font inputFont = new Font("SansSerif", Font.PLAIN, 20);
         polynomialField.setFont(inputFont);
@@ -35,6 +41,13 @@ public class PSQFF_GUI1 extends JFrame {
         inputPanel.add(new JLabel("   mod "));
         inputPanel.add(modulusField);
         inputPanel.add(Box.createHorizontalStrut(10));
+        yunBox.setToolTipText("Разложение на свободные от квадратов множители алгоритмом Юна: все кратности за линейное число НОД");
+        inputPanel.add(yunBox);
+        rootsOnlyBox.setToolTipText("Искать только линейные множители: gcd(p(x), x^p - x) и расщепление Рабина");
+        inputPanel.add(rootsOnlyBox);
+        parallelBox.setToolTipText("Раскладывать независимые свободные от квадратов части и классы одной степени на всех ядрах (ForkJoin)");
+        inputPanel.add(parallelBox);
+        inputPanel.add(Box.createHorizontalStrut(10));
         inputPanel.add(factorButton);
 
         mainPanel.add(inputPanel, BorderLayout.NORTH);
@@ -55,20 +68,13 @@ public class PSQFF_GUI1 extends JFrame {
         setVisible(true);
     }
 
-    private boolean isPrime(int n) {
-        if (n <= 1) return false;
-        for (int i = 2; i * i <= n; i++) {
-            if (n % i == 0) return false;
-        }
-        return true;
-    }
-
     private void performFactorization(ActionEvent e) {
         try {
             String polyString = polynomialField.getText();
-            int modulus = Integer.parseInt(modulusField.getText());
+            // Модуль любого размера: до 2^63 - арифметика в машинных словах, больше - на BigInteger
+            BigInteger modulus = new BigInteger(modulusField.getText().trim());
 
-            if (!isPrime(modulus)) {
+            if (!Primes.isPrime(modulus)) {
                 JOptionPane.showMessageDialog(this, "Модуль 'p' должен быть простым числом > 1.", "Ошибка", JOptionPane.ERROR_MESSAGE);
                 return;
             }
@@ -76,11 +82,11 @@ public class PSQFF_GUI1 extends JFrame {
             // ИЗМЕНЕНИЕ: Передаем модуль в fromString
             Polynomial1 p = Polynomial1.fromString(polyString, modulus);
 
-            ReportGenerator1 generator = new ReportGenerator1(modulus);
-            String report = generator.generateReport(p);
-            
-            resultArea.setText(report);
-            resultArea.setCaretPosition(0);
+            ReportGenerator1 generator = new ReportGenerator1(modulus, yunBox.isSelected(), rootsOnlyBox.isSelected(),
+                    parallelBox.isSelected());
+            resultArea.setText("Раскладываю на множители...");
+            factorButton.setEnabled(false);
+            new ReportTask(generator, p).execute();
 
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Неверный формат модуля. Введите целое число.", "Ошибка", JOptionPane.ERROR_MESSAGE);
@@ -90,6 +96,37 @@ public class PSQFF_GUI1 extends JFrame {
         }
     }
 
+    // Отчёт строится вне потока событий Swing, иначе окно замирает на всё разложение
+    private class ReportTask extends SwingWorker<String, Void> {
+        private final ReportGenerator1 generator;
+        private final Polynomial1 polynomial;
+
+        ReportTask(ReportGenerator1 generator, Polynomial1 polynomial) {
+            this.generator = generator;
+            this.polynomial = polynomial;
+        }
+
+        @Override
+        protected String doInBackground() {
+            return generator.generateReport(polynomial);
+        }
+
+        @Override
+        protected void done() {
+            try {
+                resultArea.setText(get());
+                resultArea.setCaretPosition(0);
+            } catch (InterruptedException | ExecutionException ex) {
+                Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                resultArea.setText("");
+                JOptionPane.showMessageDialog(PSQFF_GUI1.this, "Произошла ошибка: " + cause.getMessage(), "Ошибка", JOptionPane.ERROR_MESSAGE);
+                cause.printStackTrace();
+            } finally {
+                factorButton.setEnabled(true);
+            }
+        }
+    }
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(PSQFF_GUI1::new);
     }
@@ -0,0 +1,175 @@
+// Файл: PolyFile.java
+// Двоичный формат многочлена для обмена между запусками: заголовок и коэффициенты в том же
+// виде, в каком их хранит Polynomial1, так что чтение - отображение файла в память
+// (FileChannel.map) и одно блочное копирование на представление, без разбора текста.
+// Все числа little-endian, данные выровнены на 8 байт:
+//   0  int   MAGIC ("PQF1")
+//   4  byte  вид: DENSE - вычеты в long (p в машинном слове), BITS - p = 2, по 64 коэффициента
+//            в слове, SPARSE - разреженная форма, BIG - p вне машинного слова
+//   8  int   длина записи модуля m в байтах
+//   12 int   BIG: ширина слота коэффициента в байтах, иначе 0
+//   16 long  число элементов n (коэффициентов, слов или членов)
+//   24       модуль (BigInteger.toByteArray), дополненный нулями до кратного 8
+// далее DENSE и BITS: n long; SPARSE: n long коэффициентов, затем n int показателей;
+// BIG: n слотов, в каждом коэффициент без знака big-endian.
+// Коэффициенты хранятся приведёнными и без старших нулей; при чтении это проверяется.
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+final class PolyFile {
+
+    static final int MAGIC = 0x31465150; // "PQF1"
+    static final byte DENSE = 0;
+    static final byte BITS = 1;
+    static final byte SPARSE = 2;
+    static final byte BIG = 3;
+
+    private static final int HEADER = 24;
+
+    private PolyFile() {
+    }
+
+    static void write(Polynomial1 p, Path path) throws IOException {
+        byte[] m = p.getModulus().toByteArray();
+        int modulusBytes = align(m.length);
+        byte kind;
+        long n;
+        int slot = 0;
+        long payload;
+        if (p.sparsePoly() != null) {
+            kind = SPARSE;
+            n = p.sparsePoly().terms();
+            payload = align(n * 12);
+        } else if (p.bitArray() != null) {
+            kind = BITS;
+            n = p.bitArray().length;
+            payload = n * 8;
+        } else if (p.field() != null) {
+            kind = DENSE;
+            n = p.coefficientArray().length;
+            payload = n * 8;
+        } else {
+            kind = BIG;
+            n = p.bigCoefficientArray().length;
+            slot = (p.getModulus().bitLength() + 7) / 8;
+            payload = align(n * slot);
+        }
+
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + modulusBytes + payload);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).put(kind).put((byte) 0).put((byte) 0).put((byte) 0);
+            buf.putInt(m.length).putInt(slot).putLong(n);
+            buf.put(m).position(HEADER + modulusBytes);
+            switch (kind) {
+                case SPARSE -> {
+                    SparsePoly s = p.sparsePoly();
+                    buf.asLongBuffer().put(s.coefficientArray());
+                    buf.position(buf.position() + (int) n * 8);
+                    buf.asIntBuffer().put(s.exponentArray());
+                }
+                case BITS -> buf.asLongBuffer().put(p.bitArray());
+                case DENSE -> buf.asLongBuffer().put(p.coefficientArray());
+                default -> {
+                    for (BigInteger c : p.bigCoefficientArray()) {
+                        byte[] b = c.toByteArray(); // возможен ведущий нулевой байт знака
+                        int len = Math.min(b.length, slot);
+                        int start = buf.position();
+                        buf.position(start + slot - len).put(b, b.length - len, len);
+                    }
+                }
+            }
+            buf.force();
+        }
+    }
+
+    static Polynomial1 read(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Отображение остаётся действительным и после закрытия канала
+            return read(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    // Многочлен из буфера в формате выше начиная с position
+    static Polynomial1 read(ByteBuffer in) throws IOException {
+        ByteBuffer buf = in.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.remaining() < HEADER || buf.getInt() != MAGIC) throw corrupt("нет заголовка PQF1");
+        byte kind = buf.get();
+        buf.position(8);
+        int modulusLength = buf.getInt();
+        int slot = buf.getInt();
+        long n = buf.getLong();
+        if (modulusLength <= 0 || n < 0 || n > Integer.MAX_VALUE
+                || HEADER + (long) align(modulusLength) > buf.limit()) throw corrupt("неверный заголовок");
+        byte[] m = new byte[modulusLength];
+        buf.get(m).position(HEADER + align(modulusLength));
+        BigInteger modulus = new BigInteger(m);
+        if (modulus.compareTo(BigInteger.TWO) < 0) throw corrupt("модуль " + modulus);
+        int count = (int) n;
+
+        switch (kind) {
+            case DENSE, BITS, SPARSE -> {
+                long bytes = kind == SPARSE ? n * 12 : n * 8;
+                if (buf.remaining() < bytes) throw corrupt("файл обрезан");
+                boolean binary = modulus.equals(BigInteger.TWO);
+                if (kind == BITS && !binary || kind == DENSE && binary || !CoefficientField.fits(modulus)) {
+                    throw corrupt("вид не подходит к модулю");
+                }
+                long[] words = new long[count];
+                buf.asLongBuffer().get(words);
+                if (kind == BITS) {
+                    if (count > 0 && words[count - 1] == 0) throw corrupt("старшее слово нулевое");
+                    return Polynomial1.fromBits(words);
+                }
+                CoefficientField f = CoefficientField.of(modulus.longValue());
+                for (long c : words) {
+                    if (c < 0 || c >= f.modulus()) throw corrupt("коэффициент " + c + " не приведён");
+                }
+                if (kind == DENSE) {
+                    if (count == 0 || count > 1 && words[count - 1] == 0) throw corrupt("старший коэффициент нулевой");
+                    return Polynomial1.fromBuffer(f, words);
+                }
+                int[] exps = new int[count];
+                buf.position(buf.position() + count * 8);
+                buf.asIntBuffer().get(exps);
+                for (int i = 0; i < count; i++) {
+                    if (exps[i] < 0 || i > 0 && exps[i] <= exps[i - 1]) throw corrupt("показатели не по возрастанию");
+                }
+                return Polynomial1.ofSparse(modulus, SparsePoly.of(f, exps, words, count));
+            }
+            case BIG -> {
+                if (slot <= 0 || slot < (modulus.bitLength() + 7) / 8 || buf.remaining() < n * slot) {
+                    throw corrupt("файл обрезан");
+                }
+                BigInteger[] coeffs = new BigInteger[count];
+                byte[] b = new byte[slot];
+                for (int i = 0; i < count; i++) {
+                    buf.get(b);
+                    coeffs[i] = new BigInteger(1, b);
+                    if (coeffs[i].compareTo(modulus) >= 0) throw corrupt("коэффициент " + coeffs[i] + " не приведён");
+                }
+                return new Polynomial1(coeffs, modulus);
+            }
+            default -> throw corrupt("неизвестный вид " + kind);
+        }
+    }
+
+    private static int align(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static IOException corrupt(String what) {
+        return new IOException("Повреждённый файл многочлена: " + what);
+    }
+}
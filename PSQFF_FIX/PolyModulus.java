@@ -0,0 +1,168 @@
+// Файл: PolyModulus.java
+// Быстрое деление на фиксированный многочлен f (деление Ньютона).
+// Если rev(g) - g с обратным порядком коэффициентов, то частное a / f равно
+// rev(rev(a) * rev(f)^(-1) mod x^k), k = deg a - deg f + 1. Обратный ряд rev(f)^(-1)
+// считается итерациями Ньютона g <- g * (2 - rev(f) * g), каждая удваивает точность;
+// он хранится вместе с f и при надобности доращивается, так что каждое следующее
+// взятие остатка по тому же f стоит двух умножений (PolyMultiply: Карацуба или NTT).
+// На этом построено возведение в степень по модулю f.
+// Объекты кэшируются по f.
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class PolyModulus {
+
+    // Ниже этой длины частного или делителя деление столбиком быстрее
+    static final int NEWTON_THRESHOLD = 128;
+
+    private static final int MAX_CACHED = 8;
+
+    private static final Map<PolyRep.Words, PolyModulus> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<PolyRep.Words, PolyModulus> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    private final CoefficientField field;
+    private final long[] f;    // коэффициенты делителя, f[n-1] != 0
+    private final int n;
+    private final long[] revF;
+    private long[] inverse = new long[0]; // rev(f)^(-1) mod x^inverse.length
+
+    static PolyModulus of(PolyRep.Words f) {
+        if (f.isZero()) throw new ArithmeticException("Division by zero.");
+        synchronized (CACHE) {
+            return CACHE.computeIfAbsent(f, p -> new PolyModulus(p.field, p.coefficients));
+        }
+    }
+
+    // Без кэша - для однократного деления на f (f[f.length-1] != 0)
+    PolyModulus(CoefficientField field, long[] f) {
+        this.field = field;
+        this.f = f;
+        this.n = f.length;
+        this.revF = new long[n];
+        for (int i = 0; i < n; i++) revF[i] = f[n - 1 - i];
+    }
+
+    CoefficientField field() {
+        return field;
+    }
+
+    int degree() {
+        return n - 1;
+    }
+
+    /**
+     * Частное и остаток a[0..aLen) / f; остаток - массив длины deg f.
+     */
+    long[][] divide(long[] a, int aLen) {
+        int qLen = aLen - n + 1;
+        if (qLen <= 0) {
+            long[] r = new long[n - 1];
+            System.arraycopy(a, 0, r, 0, aLen);
+            return new long[][]{new long[0], r};
+        }
+        if (qLen < NEWTON_THRESHOLD || n < NEWTON_THRESHOLD) {
+            long[] r = Arrays.copyOf(a, aLen);
+            long[] q = new long[qLen];
+            Polynomial1.Workspace.reduce(field, r, aLen, f, n, q);
+            return new long[][]{q, Arrays.copyOf(r, n - 1)};
+        }
+        long[] q = quotient(a, aLen, qLen);
+        return new long[][]{q, lowDifference(a, aLen, q)};
+    }
+
+    long[] remainder(long[] a, int aLen) {
+        return divide(a, aLen)[1];
+    }
+
+    // Остаток по f произведения двух остатков
+    long[] multiplyMod(long[] a, long[] b) {
+        if (n == 1) return new long[0];
+        long[] product = PolyMultiply.multiply(field, a, a.length, b, b.length);
+        return remainder(product, product.length);
+    }
+
+    /**
+     * base^e mod f слева направо по битам показателя; base - остаток по f (длина deg f).
+     */
+    long[] powMod(long[] base, BigInteger e) {
+        long[] result = new long[n - 1];
+        if (n == 1) return result;
+        result[0] = 1;
+        for (int bit = e.bitLength() - 1; bit >= 0; bit--) {
+            result = multiplyMod(result, result);
+            if (e.testBit(bit)) {
+                result = multiplyMod(result, base);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * x^e mod f: умножение на x - сдвиг и один шаг деления, так что на бит показателя
+     * приходится одно возведение в квадрат по модулю f.
+     */
+    long[] xPowMod(BigInteger e) {
+        long[] result = new long[n - 1];
+        if (n == 1) return result;
+        result[0] = 1;
+        long leadInv = field.inverse(f[n - 1]);
+        for (int bit = e.bitLength() - 1; bit >= 0; bit--) {
+            result = multiplyMod(result, result);
+            if (e.testBit(bit)) {
+                long[] shifted = new long[n];
+                System.arraycopy(result, 0, shifted, 1, n - 1);
+                long top = shifted[n - 1];
+                if (top != 0) field.subtractMultiple(shifted, 0, f, n, field.mul(top, leadInv));
+                result = Arrays.copyOf(shifted, n - 1);
+            }
+        }
+        return result;
+    }
+
+    // rev(q) = rev(a) * rev(f)^(-1) mod x^qLen
+    private long[] quotient(long[] a, int aLen, int qLen) {
+        long[] inv = inverse(qLen);
+        long[] revA = new long[qLen];
+        for (int i = 0; i < qLen; i++) revA[i] = a[aLen - 1 - i];
+        long[] revQ = PolyMultiply.multiply(field, revA, qLen, inv, qLen);
+        long[] q = new long[qLen];
+        for (int i = 0; i < qLen; i++) q[i] = revQ[qLen - 1 - i];
+        return q;
+    }
+
+    // a - q*f по модулю x^(n-1): старшие коэффициенты сокращаются сами
+    private long[] lowDifference(long[] a, int aLen, long[] q) {
+        long[] qf = PolyMultiply.multiply(field, q, q.length, f, n);
+        long[] r = new long[n - 1];
+        for (int i = 0; i < n - 1; i++) {
+            r[i] = field.sub(i < aLen ? a[i] : 0, qf[i]);
+        }
+        return r;
+    }
+
+    // rev(f)^(-1) mod x^precision, доращивается от уже посчитанной точности
+    private synchronized long[] inverse(int precision) {
+        long[] g = inverse;
+        if (g.length >= precision) return g;
+        if (g.length == 0) {
+            g = new long[]{field.inverse(revF[0])};
+        }
+        while (g.length < precision) {
+            int k = Math.min(2 * g.length, precision);
+            // t = 2 - rev(f) * g mod x^k
+            long[] t = PolyMultiply.multiply(field, revF, Math.min(n, k), g, g.length);
+            t = Arrays.copyOf(t, k);
+            for (int i = 0; i < k; i++) t[i] = field.negate(t[i]);
+            t[0] = field.add(t[0], 2 % field.modulus());
+            g = Arrays.copyOf(PolyMultiply.multiply(field, g, g.length, t, k), k);
+        }
+        inverse = g;
+        return g;
+    }
+}
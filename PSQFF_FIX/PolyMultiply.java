@@ -0,0 +1,137 @@
+// Файл: PolyMultiply.java
+// Умножение многочленов над Z_p на сырых массивах коэффициентов (младший коэффициент первым).
+// - столбиком с отложенной редукцией: произведения копятся в long, остаток берётся только
+//   когда следующая строка могла бы переполнить сумму (CoefficientField.lazyProducts);
+// - Карацуба: три умножения половинной длины вместо четырёх, O(n^1.585);
+//   ниже KARATSUBA_CUTOFF выгоднее столбик;
+// - NTT (Ntt.java) для сомножителей от NTT_THRESHOLD коэффициентов, O(n log n).
+// Сомножители сильно разной длины режутся на куски длины меньшего.
+import java.util.Arrays;
+
+final class PolyMultiply {
+
+    // Подобрано замером для p = 7 и p = 2^31 - 1: на длинах 256..4096 лучше всего порог около 64
+    static final int KARATSUBA_CUTOFF = 64;
+    // Начиная с 1024 коэффициентов NTT (три простых) обгоняет Карацубу при любом p
+    static final int NTT_THRESHOLD = 1024;
+
+    private PolyMultiply() {
+    }
+
+    /**
+     * Произведение a[0..aLen) * b[0..bLen) длины aLen + bLen - 1, коэффициенты приведены.
+     */
+    static long[] multiply(CoefficientField f, long[] a, int aLen, long[] b, int bLen) {
+        if (aLen < bLen) {
+            long[] t = a; a = b; b = t;
+            int tl = aLen; aLen = bLen; bLen = tl;
+        }
+        if (bLen >= NTT_THRESHOLD && Ntt.fits(aLen, bLen)) {
+            return Ntt.multiply(f, a, aLen, b, bLen);
+        }
+        long[] out = new long[aLen + bLen - 1];
+        if (bLen <= KARATSUBA_CUTOFF) {
+            schoolbook(f, a, 0, aLen, b, 0, bLen, out, 0);
+            return out;
+        }
+        if (aLen == bLen) {
+            karatsuba(f, a, 0, b, 0, bLen, out, 0);
+            return out;
+        }
+        // a длиннее: куски a по bLen коэффициентов умножаются на b и складываются со сдвигом
+        long[] chunk = new long[bLen];
+        long[] part = new long[2 * bLen - 1];
+        for (int start = 0; start < aLen; start += bLen) {
+            int len = Math.min(bLen, aLen - start);
+            if (len == bLen) {
+                karatsuba(f, a, start, b, 0, bLen, part, 0);
+            } else {
+                System.arraycopy(a, start, chunk, 0, len);
+                Arrays.fill(chunk, len, bLen, 0);
+                karatsuba(f, chunk, 0, b, 0, bLen, part, 0);
+            }
+            int partLen = len + bLen - 1;
+            for (int i = 0; i < partLen; i++) {
+                out[start + i] = f.add(out[start + i], part[i]);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * out[oo..oo+aLen+bLen-1) = a * b столбиком (прежнее содержимое затирается).
+     */
+    static void schoolbook(CoefficientField f, long[] a, int ao, int aLen, long[] b, int bo, int bLen,
+                           long[] out, int oo) {
+        int len = aLen + bLen - 1;
+        Arrays.fill(out, oo, oo + len, 0);
+        int lazy = f.lazyProducts();
+        if (lazy == 0) {
+            // p > 2^31.5: произведение вычетов не помещается в long, приводится сразу
+            for (int i = 0; i < aLen; i++) {
+                long ai = a[ao + i];
+                if (ai == 0) continue;
+                int base = oo + i;
+                for (int j = 0; j < bLen; j++) {
+                    out[base + j] = f.add(out[base + j], f.mul(ai, b[bo + j]));
+                }
+            }
+            return;
+        }
+        int pending = 0;      // строк с последней редукции
+        int firstPending = 0; // первая из них
+        for (int i = 0; i < aLen; i++) {
+            long ai = a[ao + i];
+            if (ai == 0) continue;
+            if (pending == lazy) {
+                f.reduceRange(out, oo + firstPending, oo + i + bLen - 1);
+                pending = 0;
+            }
+            if (pending++ == 0) firstPending = i;
+            int base = oo + i;
+            for (int j = 0; j < bLen; j++) {
+                out[base + j] += ai * b[bo + j];
+            }
+        }
+        if (pending > 0) {
+            f.reduceRange(out, oo + firstPending, oo + len);
+        }
+    }
+
+    /**
+     * out[oo..oo+2n-1) = a[ao..ao+n) * b[bo..bo+n) методом Карацубы.
+     */
+    static void karatsuba(CoefficientField f, long[] a, int ao, long[] b, int bo, int n, long[] out, int oo) {
+        if (n <= KARATSUBA_CUTOFF) {
+            schoolbook(f, a, ao, n, b, bo, n, out, oo);
+            return;
+        }
+        int m = n / 2;  // младшие половины
+        int h = n - m;  // старшие, h >= m
+        // z0 = a0*b0 в out[oo..oo+2m-1), z2 = a1*b1 в out[oo+2m..oo+2n-1)
+        karatsuba(f, a, ao, b, bo, m, out, oo);
+        out[oo + 2 * m - 1] = 0;
+        karatsuba(f, a, ao + m, b, bo + m, h, out, oo + 2 * m);
+
+        // z1 = (a0 + a1)(b0 + b1) - z0 - z2
+        long[] sa = new long[h];
+        long[] sb = new long[h];
+        System.arraycopy(a, ao + m, sa, 0, h);
+        System.arraycopy(b, bo + m, sb, 0, h);
+        for (int i = 0; i < m; i++) {
+            sa[i] = f.add(sa[i], a[ao + i]);
+            sb[i] = f.add(sb[i], b[bo + i]);
+        }
+        long[] z1 = new long[2 * h - 1];
+        karatsuba(f, sa, 0, sb, 0, h, z1, 0);
+        for (int i = 0; i < 2 * m - 1; i++) {
+            z1[i] = f.sub(z1[i], out[oo + i]);
+        }
+        for (int i = 0; i < 2 * h - 1; i++) {
+            z1[i] = f.sub(z1[i], out[oo + 2 * m + i]);
+        }
+        for (int i = 0; i < 2 * h - 1; i++) {
+            out[oo + m + i] = f.add(out[oo + m + i], z1[i]);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+// Файл: PolyParser.java
+// Разбор записи многочлена вида "3x^5 - x^2 + 7" за один проход по символам, без регулярных
+// выражений, split и промежуточных строк - годится и для текстов в несколько мегабайт.
+// Источник - строка, Reader (читается блоками в общий буфер) или ByteBuffer (байты ASCII,
+// например отображённый в память файл). Пробелы в любом месте игнорируются, как и раньше.
+// - коэффициент приводится по модулю прямо по мере чтения цифр: по 18 цифр копятся в long
+//   и сворачиваются одним умножением в поле, так что длинные числа не создают BigInteger
+//   (кроме модулей вне машинного слова);
+// - члены копятся в растущих массивах показателей и коэффициентов (без TreeMap и
+//   упаковки в Integer/Long), порядок членов и повторы показателей допускаются;
+// - по числу членов и степени Polynomial1.fromTerms выбирает разреженную или плотную форму.
+// Ошибка формата - NumberFormatException с номером символа.
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+final class PolyParser {
+
+    // 10^18 - больше всего цифр, которые гарантированно помещаются в long
+    private static final int CHUNK_DIGITS = 18;
+    private static final long[] POWERS_OF_TEN = new long[CHUNK_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= CHUNK_DIGITS; i++) POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    private final BigInteger modulus;
+    private final CoefficientField field; // null - модуль вне машинного слова, коэффициенты в BigInteger
+
+    // Источник символов: ровно одно из text, reader, bytes не null
+    private final CharSequence text;
+    private final Reader reader;
+    private final ByteBuffer bytes;
+    private char[] buffer;
+    private int pos;
+    private int limit;
+    private long offset; // номер прочитанного символа - для сообщений об ошибках
+
+    // Накопленные члены
+    private int[] exponents = new int[16];
+    private long[] coefficients;
+    private BigInteger[] bigCoefficients;
+    private int count;
+
+    private PolyParser(BigInteger modulus, CharSequence text, Reader reader, ByteBuffer bytes) {
+        this.modulus = modulus;
+        this.field = CoefficientField.fits(modulus) ? CoefficientField.of(modulus.longValue()) : null;
+        this.text = text;
+        this.reader = reader;
+        this.bytes = bytes;
+        if (reader != null) buffer = new char[8192];
+        if (field != null) coefficients = new long[16];
+        else bigCoefficients = new BigInteger[16];
+    }
+
+    static Polynomial1 parse(CharSequence s, BigInteger modulus) {
+        try {
+            return new PolyParser(modulus, s, null, null).parse();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // строка не бросает IOException
+        }
+    }
+
+    static Polynomial1 parse(Reader in, BigInteger modulus) throws IOException {
+        return new PolyParser(modulus, null, in, null).parse();
+    }
+
+    // Читает от position до limit буфера, position сдвигается
+    static Polynomial1 parse(ByteBuffer in, BigInteger modulus) {
+        try {
+            return new PolyParser(modulus, null, null, in).parse();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Polynomial1 parse() throws IOException {
+        int c = next();
+        while (c != -1) {
+            // Перед первым членом знак необязателен, между членами - обязателен
+            if (count > 0 && c != '+' && c != '-') throw error("ожидался знак + или -");
+            boolean negative = false;
+            while (c == '+' || c == '-') {
+                if (c == '-') negative = !negative;
+                c = next();
+            }
+            if (c == -1 && count > 0) break; // висящий знак в конце, как "x + ", допускается
+
+            boolean hasDigits = false;
+            long value = 0;          // вычет по модулю в машинном слове
+            BigInteger big = BigInteger.ZERO;
+            long chunk = 0;
+            int digits = 0;
+            while (c >= '0' && c <= '9') {
+                hasDigits = true;
+                if (digits == CHUNK_DIGITS) {
+                    if (field != null) value = fold(value, chunk, digits);
+                    else big = big.multiply(BigInteger.valueOf(POWERS_OF_TEN[digits])).add(BigInteger.valueOf(chunk));
+                    chunk = 0;
+                    digits = 0;
+                }
+                chunk = chunk * 10 + (c - '0');
+                digits++;
+                c = next();
+            }
+            if (field != null) value = hasDigits ? fold(value, chunk, digits) : 1;
+            else big = hasDigits ? big.multiply(BigInteger.valueOf(POWERS_OF_TEN[digits])).add(BigInteger.valueOf(chunk)) : BigInteger.ONE;
+
+            int exponent = 0;
+            if (c == 'x') {
+                c = next();
+                if (c == '^') c = next();
+                if (c >= '0' && c <= '9') {
+                    long e = 0;
+                    while (c >= '0' && c <= '9') {
+                        e = e * 10 + (c - '0');
+                        if (e > Integer.MAX_VALUE) throw error("слишком большая степень");
+                        c = next();
+                    }
+                    exponent = (int) e;
+                } else {
+                    exponent = 1;
+                }
+            } else if (!hasDigits) {
+                throw error(c == -1 ? "неожиданный конец" : "неожиданный символ '" + (char) c + "'");
+            }
+
+            if (field != null) addTerm(exponent, negative ? field.negate(value) : value, null);
+            else addTerm(exponent, 0, (negative ? big.negate() : big).mod(modulus));
+        }
+        if (field != null) return Polynomial1.fromTerms(modulus, exponents, coefficients, count);
+        return Polynomial1.fromTerms(modulus, exponents, bigCoefficients, count);
+    }
+
+    // value * 10^digits + chunk по модулю
+    private long fold(long value, long chunk, int digits) {
+        return field.add(field.mul(value, field.reduce(POWERS_OF_TEN[digits])), field.reduce(chunk));
+    }
+
+    private void addTerm(int exponent, long value, BigInteger big) {
+        if (count == exponents.length) {
+            exponents = Arrays.copyOf(exponents, count * 2);
+            if (field != null) coefficients = Arrays.copyOf(coefficients, count * 2);
+            else bigCoefficients = Arrays.copyOf(bigCoefficients, count * 2);
+        }
+        exponents[count] = exponent;
+        if (field != null) coefficients[count] = value;
+        else bigCoefficients[count] = big;
+        count++;
+    }
+
+    // Следующий символ, не являющийся пробелом, или -1 в конце
+    private int next() throws IOException {
+        while (true) {
+            int c;
+            if (text != null) {
+                if (pos == text.length()) return -1;
+                c = text.charAt(pos++);
+            } else if (bytes != null) {
+                if (!bytes.hasRemaining()) return -1;
+                c = bytes.get() & 0xFF;
+            } else {
+                if (pos == limit) {
+                    limit = reader.read(buffer, 0, buffer.length);
+                    pos = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return -1;
+                    }
+                }
+                c = buffer[pos++];
+            }
+            offset++;
+            if (!Character.isWhitespace(c)) return c;
+        }
+    }
+
+    private NumberFormatException error(String what) {
+        return new NumberFormatException("Неверная запись многочлена (символ " + offset + "): " + what);
+    }
+}
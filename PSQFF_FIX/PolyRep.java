@@ -0,0 +1,686 @@
+// Файл: PolyRep.java
+// Внутреннее представление коэффициентов Polynomial1. Вид выбирается по модулю и числу членов:
+// - Words: p в машинном слове (CoefficientField), вычеты в long[];
+// - Bits: p = 2, 64 коэффициента в слове (Gf2PolyArith);
+// - Big: p вне машинного слова (p >= 2^63 или чётное p >= 2^32), BigInteger[] и BigPolyArith;
+// - Sparse: многочлен высокой степени с малым числом членов (SparsePoly), p = 2 или в слове.
+// Представления неизменяемы. Polynomial1 приводит операнды к одному виду (разреженный
+// вид переводится в плотный, где это нужно) и вызывает операцию у одного из них, так что
+// реализация получает в other свой же класс; исключения оговорены у методов.
+import java.math.BigInteger;
+import java.util.Arrays;
+
+interface PolyRep {
+
+    int degree();
+
+    boolean isZero();
+
+    // 0 <= i <= degree()
+    BigInteger coefficient(int i);
+
+    PolyRep zero();
+
+    // Плотный вид того же многочлена: Sparse переводится в Words или Bits, остальные - this
+    PolyRep dense();
+
+    PolyRep normalize();
+
+    PolyRep derivative();
+
+    PolyRep pthRoot();
+
+    PolyRep add(PolyRep other);
+
+    PolyRep subtract(PolyRep other);
+
+    // Оба ненулевые; Sparse принимает и плотный other
+    PolyRep multiply(PolyRep other);
+
+    // this - плотное делимое, divisor ненулевой, того же вида или Sparse
+    PolyRep[] divide(PolyRep divisor);
+
+    // Оба плотные
+    PolyRep gcd(PolyRep other);
+
+    // {g, s, t}: s*this + t*other = g; оба плотные
+    PolyRep[] extendedGcd(PolyRep other);
+
+    // x^exponent по модулю this
+    PolyRep xPowMod(BigInteger exponent);
+
+    // base^exponent по модулю this; base плотный
+    PolyRep powMod(PolyRep base, BigInteger exponent);
+
+    // Ненулевые члены от старшего к младшему: "3x^2 + x + 1"
+    void appendTerms(StringBuilder sb);
+
+    static void appendTerm(StringBuilder sb, String coeff, int i) {
+        if (sb.length() > 0) {
+            sb.append(" + ");
+        }
+
+        if (!coeff.equals("1") || i == 0) {
+            sb.append(coeff);
+        }
+
+        if (i > 0) {
+            sb.append("x");
+            if (i > 1) sb.append("^").append(i);
+        }
+    }
+
+    /**
+     * Вычеты по p в машинном слове: коэффициенты приведены, без старших нулей,
+     * нулевой многочлен - {0}. Деление и НОД - в буферах Polynomial1.Workspace,
+     * для длинных делителей - деление Ньютона (PolyModulus).
+     */
+    final class Words implements PolyRep {
+        final CoefficientField field;
+        final long[] coefficients;
+
+        // Без проверок: массив уже приведён, обрезан и принадлежит новому объекту
+        Words(CoefficientField field, long[] coefficients) {
+            this.field = field;
+            this.coefficients = coefficients;
+        }
+
+        // Из нового массива приведённых коэффициентов (массив не копируется, если обрезать нечего)
+        static Words of(CoefficientField field, long[] coeffs) {
+            if (coeffs.length == 1 || coeffs[coeffs.length - 1] != 0) return new Words(field, coeffs);
+            return of(field, coeffs, coeffs.length);
+        }
+
+        // Из первых len приведённых коэффициентов буфера (буфер не сохраняется)
+        static Words of(CoefficientField field, long[] buf, int len) {
+            while (len > 0 && buf[len - 1] == 0) len--;
+            return new Words(field, len == 0 ? new long[]{0} : Arrays.copyOf(buf, len));
+        }
+
+        // Коэффициенты любого знака и величины
+        static Words reduce(CoefficientField field, long[] coeffs) {
+            int degree = coeffs.length - 1;
+            while (degree > 0 && field.reduce(coeffs[degree]) == 0) {
+                degree--;
+            }
+            long[] newCoeffs = new long[degree + 1];
+            for (int i = 0; i < newCoeffs.length; i++) {
+                newCoeffs[i] = field.reduce(coeffs[i]);
+            }
+            return new Words(field, newCoeffs);
+        }
+
+        @Override
+        public int degree() {
+            return coefficients.length - 1;
+        }
+
+        @Override
+        public boolean isZero() {
+            return coefficients.length == 1 && coefficients[0] == 0;
+        }
+
+        @Override
+        public BigInteger coefficient(int i) {
+            return BigInteger.valueOf(coefficients[i]);
+        }
+
+        @Override
+        public PolyRep zero() {
+            return new Words(field, new long[]{0});
+        }
+
+        @Override
+        public PolyRep dense() {
+            return this;
+        }
+
+        @Override
+        public PolyRep normalize() {
+            long lead = coefficients[degree()];
+            if (isZero() || lead == 1) return this;
+            long[] newCoeffs = new long[coefficients.length];
+            field.scale(newCoeffs, coefficients, coefficients.length, field.inverse(lead));
+            return of(field, newCoeffs);
+        }
+
+        @Override
+        public PolyRep derivative() {
+            if (degree() == 0) return zero();
+            long[] newCoeffs = new long[degree()];
+            for (int i = 1; i <= degree(); i++) {
+                newCoeffs[i - 1] = field.mul(coefficients[i], field.reduce(i));
+            }
+            return of(field, newCoeffs);
+        }
+
+        @Override
+        public PolyRep pthRoot() {
+            if (isZero()) return this;
+            // При p > deg корнем может быть только константа
+            long p = field.modulus();
+            int step = p < Integer.MAX_VALUE ? (int) p : Integer.MAX_VALUE;
+            long[] newCoeffs = new long[degree() / step + 1];
+            for (int i = 0; i <= degree(); i++) {
+                if (i % step == 0) {
+                    newCoeffs[i / step] = coefficients[i];
+                } else if (coefficients[i] != 0) {
+                    throw new IllegalArgumentException("Polynomial is not a p-th power.");
+                }
+            }
+            return of(field, newCoeffs);
+        }
+
+        @Override
+        public PolyRep add(PolyRep other) {
+            long[] o = ((Words) other).coefficients;
+            long[] newCoeffs = new long[Math.max(coefficients.length, o.length)];
+            System.arraycopy(coefficients, 0, newCoeffs, 0, coefficients.length);
+            field.addTo(newCoeffs, o, o.length);
+            return of(field, newCoeffs);
+        }
+
+        @Override
+        public PolyRep subtract(PolyRep other) {
+            long[] o = ((Words) other).coefficients;
+            long[] newCoeffs = new long[Math.max(coefficients.length, o.length)];
+            System.arraycopy(coefficients, 0, newCoeffs, 0, coefficients.length);
+            field.subtractFrom(newCoeffs, o, o.length);
+            return of(field, newCoeffs);
+        }
+
+        @Override
+        public PolyRep multiply(PolyRep other) {
+            long[] o = ((Words) other).coefficients;
+            // Столбик или Карацуба - по длине сомножителей
+            return of(field, PolyMultiply.multiply(field, coefficients, coefficients.length, o, o.length));
+        }
+
+        @Override
+        public PolyRep[] divide(PolyRep divisor) {
+            if (divisor instanceof Sparse s) return s.divideDense(this);
+            Words b = (Words) divisor;
+            int qLen = degree() - b.degree() + 1;
+            if (b.degree() >= PolyModulus.NEWTON_THRESHOLD && qLen >= PolyModulus.NEWTON_THRESHOLD) {
+                // Деление Ньютона с обратным рядом, закэшированным для делителя
+                long[][] qr = PolyModulus.of(b).divide(coefficients, coefficients.length);
+                return new PolyRep[]{of(field, qr[0], qr[0].length), of(field, qr[1], qr[1].length)};
+            }
+            return Polynomial1.workspace().divide(this, b);
+        }
+
+        @Override
+        public PolyRep gcd(PolyRep other) {
+            return Polynomial1.workspace().gcd(this, (Words) other);
+        }
+
+        @Override
+        public PolyRep[] extendedGcd(PolyRep other) {
+            long[][] gst = HalfGcd.extendedGcd(field, coefficients, ((Words) other).coefficients);
+            return new PolyRep[]{of(field, gst[0], gst[0].length),
+                    of(field, gst[1], gst[1].length), of(field, gst[2], gst[2].length)};
+        }
+
+        @Override
+        public PolyRep xPowMod(BigInteger exponent) {
+            long[] r = PolyModulus.of(this).xPowMod(exponent);
+            return of(field, r, r.length);
+        }
+
+        @Override
+        public PolyRep powMod(PolyRep base, BigInteger exponent) {
+            long[] b = ((Words) base).coefficients;
+            PolyModulus m = PolyModulus.of(this);
+            long[] r = m.powMod(m.remainder(b, b.length), exponent);
+            return of(field, r, r.length);
+        }
+
+        @Override
+        public void appendTerms(StringBuilder sb) {
+            // коэффициенты хранятся приведёнными, то есть неотрицательными
+            for (int i = degree(); i >= 0; i--) {
+                if (coefficients[i] != 0) PolyRep.appendTerm(sb, Long.toString(coefficients[i]), i);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Words w && w.field.modulus() == field.modulus()
+                    && Arrays.equals(coefficients, w.coefficients);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(coefficients);
+        }
+    }
+
+    /**
+     * p = 2: по 64 коэффициента в слове, слова без старших нулевых,
+     * нулевой многочлен - пустой массив (Gf2PolyArith).
+     */
+    final class Bits implements PolyRep {
+        static final Bits ZERO = new Bits(Gf2PolyArith.ZERO);
+
+        final long[] bits;
+
+        // Массив становится собственностью объекта
+        Bits(long[] bits) {
+            this.bits = bits;
+        }
+
+        // Чётность коэффициента - его вычет по модулю 2 (в дополнительном коде и для отрицательных)
+        static Bits pack(long[] coeffs) {
+            long[] words = new long[(coeffs.length + 63) >>> 6];
+            for (int i = 0; i < coeffs.length; i++) words[i >>> 6] |= (coeffs[i] & 1) << (i & 63);
+            return new Bits(Gf2PolyArith.trim(words));
+        }
+
+        static Bits pack(BigInteger[] coeffs) {
+            long[] words = new long[(coeffs.length + 63) >>> 6];
+            for (int i = 0; i < coeffs.length; i++) {
+                if (coeffs[i].testBit(0)) words[i >>> 6] |= 1L << (i & 63);
+            }
+            return new Bits(Gf2PolyArith.trim(words));
+        }
+
+        @Override
+        public int degree() {
+            return Math.max(Gf2PolyArith.degree(bits), 0);
+        }
+
+        @Override
+        public boolean isZero() {
+            return bits.length == 0;
+        }
+
+        @Override
+        public BigInteger coefficient(int i) {
+            return Gf2PolyArith.testBit(bits, i) ? BigInteger.ONE : BigInteger.ZERO;
+        }
+
+        @Override
+        public PolyRep zero() {
+            return ZERO;
+        }
+
+        @Override
+        public PolyRep dense() {
+            return this;
+        }
+
+        // Над GF(2) ненулевой многочлен всегда нормирован
+        @Override
+        public PolyRep normalize() {
+            return this;
+        }
+
+        @Override
+        public PolyRep derivative() {
+            return new Bits(Gf2PolyArith.derivative(bits));
+        }
+
+        @Override
+        public PolyRep pthRoot() {
+            return new Bits(Gf2PolyArith.sqrt(bits));
+        }
+
+        @Override
+        public PolyRep add(PolyRep other) {
+            return new Bits(Gf2PolyArith.add(bits, ((Bits) other).bits));
+        }
+
+        // -1 = 1
+        @Override
+        public PolyRep subtract(PolyRep other) {
+            return add(other);
+        }
+
+        @Override
+        public PolyRep multiply(PolyRep other) {
+            return new Bits(this == other ? Gf2PolyArith.square(bits) : Gf2PolyArith.multiply(bits, ((Bits) other).bits));
+        }
+
+        @Override
+        public PolyRep[] divide(PolyRep divisor) {
+            if (divisor instanceof Sparse s) return s.divideDense(this);
+            long[][] qr = Gf2PolyArith.divide(bits, ((Bits) divisor).bits);
+            return new PolyRep[]{new Bits(qr[0]), new Bits(qr[1])};
+        }
+
+        @Override
+        public PolyRep gcd(PolyRep other) {
+            return new Bits(Gf2PolyArith.gcd(bits, ((Bits) other).bits));
+        }
+
+        @Override
+        public PolyRep[] extendedGcd(PolyRep other) {
+            long[][] gst = Gf2PolyArith.extendedGcd(bits, ((Bits) other).bits);
+            return new PolyRep[]{new Bits(gst[0]), new Bits(gst[1]), new Bits(gst[2])};
+        }
+
+        @Override
+        public PolyRep xPowMod(BigInteger exponent) {
+            return new Bits(Gf2PolyArith.xPowMod(exponent, bits));
+        }
+
+        @Override
+        public PolyRep powMod(PolyRep base, BigInteger exponent) {
+            return new Bits(Gf2PolyArith.powMod(((Bits) base).bits, exponent, bits));
+        }
+
+        @Override
+        public void appendTerms(StringBuilder sb) {
+            for (int i = Gf2PolyArith.degree(bits); i >= 0; i--) {
+                if (Gf2PolyArith.testBit(bits, i)) PolyRep.appendTerm(sb, "1", i);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Bits b && Arrays.equals(bits, b.bits);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(bits);
+        }
+    }
+
+    /**
+     * p вне машинного слова: BigInteger[] без старших нулей, нулевой многочлен - {0}
+     * (BigPolyArith получает нулевой многочлен пустым массивом, см. big()).
+     */
+    final class Big implements PolyRep {
+        final BigInteger modulus;
+        final BigInteger[] coefficients;
+
+        // Коэффициенты уже приведены и обрезаны; нулевой многочлен можно передать пустым массивом
+        Big(BigInteger modulus, BigInteger[] trimmed) {
+            this.modulus = modulus;
+            this.coefficients = trimmed.length == 0 ? new BigInteger[]{BigInteger.ZERO} : trimmed;
+        }
+
+        // Коэффициенты любого знака и величины
+        static Big reduce(BigInteger modulus, BigInteger[] coeffs) {
+            BigInteger[] big = new BigInteger[coeffs.length];
+            for (int i = 0; i < big.length; i++) big[i] = coeffs[i].mod(modulus);
+            return new Big(modulus, BigPolyArith.trim(big));
+        }
+
+        // Коэффициенты для BigPolyArith: без старших нулей, нулевой многочлен - пустой массив
+        BigInteger[] big() {
+            return isZero() ? BigPolyArith.ZERO : coefficients;
+        }
+
+        @Override
+        public int degree() {
+            return coefficients.length - 1;
+        }
+
+        @Override
+        public boolean isZero() {
+            return coefficients.length == 1 && coefficients[0].signum() == 0;
+        }
+
+        @Override
+        public BigInteger coefficient(int i) {
+            return coefficients[i];
+        }
+
+        @Override
+        public PolyRep zero() {
+            return new Big(modulus, BigPolyArith.ZERO);
+        }
+
+        @Override
+        public PolyRep dense() {
+            return this;
+        }
+
+        @Override
+        public PolyRep normalize() {
+            BigInteger lead = coefficients[degree()];
+            if (isZero() || lead.equals(BigInteger.ONE)) return this;
+            return new Big(modulus, BigPolyArith.scale(modulus, coefficients, lead.modInverse(modulus)));
+        }
+
+        @Override
+        public PolyRep derivative() {
+            if (degree() == 0) return zero();
+            BigInteger[] newCoeffs = new BigInteger[degree()];
+            for (int i = 1; i <= degree(); i++) {
+                newCoeffs[i - 1] = coefficients[i].multiply(BigInteger.valueOf(i)).mod(modulus);
+            }
+            return new Big(modulus, BigPolyArith.trim(newCoeffs));
+        }
+
+        // p больше любой степени, так что p-я степень - только константа
+        @Override
+        public PolyRep pthRoot() {
+            for (int i = 1; i <= degree(); i++) {
+                if (coefficients[i].signum() != 0) throw new IllegalArgumentException("Polynomial is not a p-th power.");
+            }
+            return new Big(modulus, new BigInteger[]{coefficients[0]});
+        }
+
+        @Override
+        public PolyRep add(PolyRep other) {
+            return new Big(modulus, BigPolyArith.add(modulus, big(), ((Big) other).big()));
+        }
+
+        @Override
+        public PolyRep subtract(PolyRep other) {
+            return new Big(modulus, BigPolyArith.subtract(modulus, big(), ((Big) other).big()));
+        }
+
+        @Override
+        public PolyRep multiply(PolyRep other) {
+            return new Big(modulus, BigPolyArith.multiply(modulus, coefficients, ((Big) other).coefficients));
+        }
+
+        @Override
+        public PolyRep[] divide(PolyRep divisor) {
+            BigInteger[][] qr = BigPolyArith.divide(modulus, big(), ((Big) divisor).big());
+            return new PolyRep[]{new Big(modulus, qr[0]), new Big(modulus, qr[1])};
+        }
+
+        @Override
+        public PolyRep gcd(PolyRep other) {
+            return new Big(modulus, BigPolyArith.gcd(modulus, big(), ((Big) other).big()));
+        }
+
+        @Override
+        public PolyRep[] extendedGcd(PolyRep other) {
+            BigInteger[][] gst = BigPolyArith.extendedGcd(modulus, big(), ((Big) other).big());
+            return new PolyRep[]{new Big(modulus, gst[0]), new Big(modulus, gst[1]), new Big(modulus, gst[2])};
+        }
+
+        @Override
+        public PolyRep xPowMod(BigInteger exponent) {
+            BigInteger[] x = {BigInteger.ZERO, BigInteger.ONE};
+            return new Big(modulus, BigPolyArith.powMod(modulus, x, exponent, big()));
+        }
+
+        @Override
+        public PolyRep powMod(PolyRep base, BigInteger exponent) {
+            return new Big(modulus, BigPolyArith.powMod(modulus, ((Big) base).big(), exponent, big()));
+        }
+
+        @Override
+        public void appendTerms(StringBuilder sb) {
+            for (int i = degree(); i >= 0; i--) {
+                if (coefficients[i].signum() != 0) PolyRep.appendTerm(sb, coefficients[i].toString(), i);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Big b && modulus.equals(b.modulus) && Arrays.equals(coefficients, b.coefficients);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(coefficients);
+        }
+    }
+
+    /**
+     * Разреженная форма (p = 2 или p в машинном слове). Результат операции остаётся
+     * разреженным, только если членов по-прежнему мало (см. of); операциям, которым
+     * разреженность не помогает, отдаётся плотный вид. Хэш совпадает с хэшем той же
+     * плотной формы.
+     */
+    final class Sparse implements PolyRep {
+        final SparsePoly poly;
+        final boolean binary;
+
+        private Sparse(SparsePoly poly, boolean binary) {
+            this.poly = poly;
+            this.binary = binary;
+        }
+
+        static PolyRep of(SparsePoly s, boolean binary) {
+            if (SparsePoly.preferred(s.degree(), s.terms())) return new Sparse(s, binary);
+            return binary ? new Bits(s.toBits()) : Words.of(s.field(), s.toDense());
+        }
+
+        // Плотный многочлен высокой степени с малым числом членов - в разреженную форму, иначе как есть
+        static PolyRep compact(PolyRep dense) {
+            if (dense instanceof Words w && w.degree() >= SparsePoly.MIN_DEGREE
+                    && SparsePoly.preferred(w.degree(), SparsePoly.countTerms(w.coefficients, w.coefficients.length))) {
+                return new Sparse(SparsePoly.fromDense(w.field, w.coefficients, w.coefficients.length), false);
+            }
+            if (dense instanceof Bits b && Gf2PolyArith.degree(b.bits) >= SparsePoly.MIN_DEGREE
+                    && SparsePoly.preferred(Gf2PolyArith.degree(b.bits), SparsePoly.countBits(b.bits))) {
+                return new Sparse(SparsePoly.fromBits(b.bits), true);
+            }
+            return dense;
+        }
+
+        @Override
+        public int degree() {
+            return poly.degree();
+        }
+
+        @Override
+        public boolean isZero() {
+            return poly.isZero();
+        }
+
+        @Override
+        public BigInteger coefficient(int i) {
+            return BigInteger.valueOf(poly.coefficient(i));
+        }
+
+        @Override
+        public PolyRep zero() {
+            return binary ? Bits.ZERO : new Words(poly.field(), new long[]{0});
+        }
+
+        @Override
+        public PolyRep dense() {
+            return binary ? new Bits(poly.toBits()) : Words.of(poly.field(), poly.toDense());
+        }
+
+        @Override
+        public PolyRep normalize() {
+            if (isZero() || binary) return this;
+            long lead = poly.leadingCoefficient();
+            return lead == 1 ? this : new Sparse(poly.scale(poly.field().inverse(lead)), false);
+        }
+
+        @Override
+        public PolyRep derivative() {
+            return of(poly.derivative(), binary);
+        }
+
+        @Override
+        public PolyRep pthRoot() {
+            return of(poly.pthRoot(poly.field().modulus()), binary);
+        }
+
+        @Override
+        public PolyRep add(PolyRep other) {
+            return of(poly.add(((Sparse) other).poly), binary);
+        }
+
+        @Override
+        public PolyRep subtract(PolyRep other) {
+            return of(poly.subtract(((Sparse) other).poly), binary);
+        }
+
+        // Попарные произведения членов или сдвиги плотного сомножителя
+        @Override
+        public PolyRep multiply(PolyRep other) {
+            if (other instanceof Sparse s) {
+                if (poly.canMultiply(s.poly)) return of(poly.multiply(s.poly), binary);
+                other = s.dense();
+            }
+            if (binary) return new Bits(poly.multiplyBits(((Bits) other).bits));
+            long[] d = ((Words) other).coefficients;
+            return Words.of(poly.field(), poly.multiplyDense(d, d.length));
+        }
+
+        @Override
+        public PolyRep[] divide(PolyRep divisor) {
+            return dense().divide(divisor);
+        }
+
+        // Деление плотного a на this: шаг деления затрагивает только члены делителя
+        PolyRep[] divideDense(PolyRep a) {
+            if (binary) {
+                long[][] qr = poly.divideBits(((Bits) a).bits);
+                return new PolyRep[]{new Bits(qr[0]), new Bits(qr[1])};
+            }
+            long[] d = ((Words) a).coefficients;
+            long[][] qr = poly.divide(d, d.length);
+            CoefficientField f = poly.field();
+            return new PolyRep[]{Words.of(f, qr[0], qr[0].length), Words.of(f, qr[1], qr[1].length)};
+        }
+
+        @Override
+        public PolyRep gcd(PolyRep other) {
+            return dense().gcd(other.dense());
+        }
+
+        @Override
+        public PolyRep[] extendedGcd(PolyRep other) {
+            return dense().extendedGcd(other.dense());
+        }
+
+        // Умножение на x по модулю разреженного f - сдвиг и вычитание нескольких членов
+        @Override
+        public PolyRep xPowMod(BigInteger exponent) {
+            if (binary) return new Bits(poly.xPowModBits(exponent));
+            long[] r = poly.xPowMod(exponent);
+            return Words.of(poly.field(), r, r.length);
+        }
+
+        // Остаток по разреженному f дешевле деления Ньютона: O(t) на коэффициент
+        @Override
+        public PolyRep powMod(PolyRep base, BigInteger exponent) {
+            if (binary) return new Bits(poly.powModBits(((Bits) base).bits, exponent));
+            long[] d = ((Words) base).coefficients;
+            long[] r = poly.powMod(poly.divide(d, d.length)[1], exponent);
+            return Words.of(poly.field(), r, r.length);
+        }
+
+        @Override
+        public void appendTerms(StringBuilder sb) {
+            for (int k = poly.terms() - 1; k >= 0; k--) {
+                PolyRep.appendTerm(sb, Long.toString(poly.coefficientAt(k)), poly.exponent(k));
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Sparse s && binary == s.binary && poly.sameTerms(s.poly);
+        }
+
+        @Override
+        public int hashCode() {
+            return binary ? poly.bitsHash() : poly.denseHash();
+        }
+    }
+}
@@ -1,99 +1,166 @@
 // Файл: Polynomial.java (ИСПРАВЛЕННАЯ ВЕРСИЯ)
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Map;
-import java.util.TreeMap;
-import java.math.BigInteger; // Используем для modInverse
 
 public class Polynomial1 {
 
-    private final long[] coefficients;
+    // Представление коэффициентов (PolyRep) зависит от модуля и числа членов:
+    // p = 2 - биты, p в машинном слове - вычеты в long[], иначе BigInteger[];
+    // в первых двух случаях многочлен высокой степени с малым числом членов - разреженный.
+    private final PolyRep rep;
     // ВАЖНО: Убрали static P, теперь модуль - это свойство каждого объекта
-    private final int modulus;
+    private final BigInteger modulus;
 
     // Конструктор теперь требует модуль
     public Polynomial1(long[] coeffs, int modulus) {
+        this(coeffs, BigInteger.valueOf(modulus));
+    }
+
+    // Коэффициенты в long при модуле любого размера
+    public Polynomial1(long[] coeffs, BigInteger modulus) {
         this.modulus = modulus;
-        int degree = coeffs.length - 1;
-        while (degree > 0 && mod(coeffs[degree]) == 0) {
-            degree--;
+        if (isBinary(modulus)) {
+            rep = PolyRep.Sparse.compact(PolyRep.Bits.pack(coeffs));
+        } else if (CoefficientField.fits(modulus)) {
+            rep = PolyRep.Sparse.compact(PolyRep.Words.reduce(CoefficientField.of(modulus.longValue()), coeffs));
+        } else {
+            BigInteger[] big = new BigInteger[coeffs.length];
+            for (int i = 0; i < big.length; i++) big[i] = BigInteger.valueOf(coeffs[i]);
+            rep = PolyRep.Big.reduce(modulus, big);
         }
-        long[] newCoeffs = new long[degree + 1];
-        for (int i = 0; i < newCoeffs.length; i++) {
-            newCoeffs[i] = mod(coeffs[i]);
+    }
+
+    public Polynomial1(BigInteger[] coeffs, BigInteger modulus) {
+        this.modulus = modulus;
+        if (isBinary(modulus)) {
+            rep = PolyRep.Sparse.compact(PolyRep.Bits.pack(coeffs));
+        } else if (CoefficientField.fits(modulus)) {
+            long[] reduced = new long[Math.max(coeffs.length, 1)];
+            for (int i = 0; i < coeffs.length; i++) reduced[i] = coeffs[i].mod(modulus).longValue();
+            rep = PolyRep.Sparse.compact(PolyRep.Words.reduce(CoefficientField.of(modulus.longValue()), reduced));
+        } else {
+            rep = PolyRep.Big.reduce(modulus, coeffs);
         }
-        this.coefficients = newCoeffs;
     }
 
-    // Конструктор копирования
+    // Конструктор копирования (представления неизменяемы, их можно разделять)
     public Polynomial1(Polynomial1 other) {
-        this.coefficients = Arrays.copyOf(other.coefficients, other.coefficients.length);
+        this.rep = other.rep;
         this.modulus = other.modulus;
     }
 
     // Конструктор для создания нулевого многочлена
     public Polynomial1(int modulus) {
-        this.coefficients = new long[]{0};
+        this(new long[]{0}, modulus);
+    }
+
+    // Без проверок: представление уже построено по этому модулю
+    private Polynomial1(BigInteger modulus, PolyRep rep) {
+        this.rep = rep;
         this.modulus = modulus;
     }
 
+    private Polynomial1 with(PolyRep r) {
+        return r == rep ? this : new Polynomial1(modulus, r);
+    }
+
+    // Результат разреженной операции остаётся разреженным, только если членов по-прежнему мало
+    static Polynomial1 ofSparse(BigInteger modulus, SparsePoly s) {
+        return new Polynomial1(modulus, PolyRep.Sparse.of(s, isBinary(modulus)));
+    }
+
+    private static boolean isBinary(BigInteger modulus) {
+        return modulus.equals(BigInteger.TWO);
+    }
+
+    // Многочлен из нового массива приведённых коэффициентов (массив не копируется, если обрезать нечего)
+    static Polynomial1 fromBuffer(CoefficientField field, long[] coeffs) {
+        return new Polynomial1(field.bigModulus(), PolyRep.Words.of(field, coeffs));
+    }
+
+    // Многочлен из первых len приведённых коэффициентов буфера (буфер не сохраняется)
+    static Polynomial1 fromBuffer(CoefficientField field, long[] buf, int len) {
+        return new Polynomial1(field.bigModulus(), PolyRep.Words.of(field, buf, len));
+    }
+
+    // Для быстрых алгоритмов пакета: массив не копируется и не должен меняться;
+    // null, если многочлен хранится иначе, чем вычетами в long[]
+    long[] coefficientArray() {
+        return rep instanceof PolyRep.Words w ? w.coefficients : null;
+    }
+
+    CoefficientField field() {
+        return rep instanceof PolyRep.Words w ? w.field : null;
+    }
+
+    // Остальные представления - для PolyFile, массивы тоже не копируются
+    long[] bitArray() {
+        return rep instanceof PolyRep.Bits b ? b.bits : null;
+    }
+
+    SparsePoly sparsePoly() {
+        return rep instanceof PolyRep.Sparse s ? s.poly : null;
+    }
+
+    BigInteger[] bigCoefficientArray() {
+        return rep instanceof PolyRep.Big b ? b.big() : null;
+    }
+
+    // Многочлен над GF(2) из упакованных слов (массив становится собственностью многочлена)
+    static Polynomial1 fromBits(long[] words) {
+        return new Polynomial1(BigInteger.TWO, new PolyRep.Bits(Gf2PolyArith.trim(words)));
+    }
+
+    // i-й коэффициент при любом размере модуля
+    BigInteger coefficient(int i) {
+        return i > degree() ? BigInteger.ZERO : rep.coefficient(i);
+    }
+
+    public BigInteger getModulus() {
+        return modulus;
+    }
+
     public int degree() {
-        return coefficients.length - 1;
+        return rep.degree();
     }
 
     public boolean isZero() {
-        return degree() == 0 && coefficients[0] == 0;
+        return rep.isZero();
     }
 
     public boolean isConstant() {
         return degree() == 0;
     }
 
-    // ИЗМЕНЕНИЕ: mod теперь не статический метод
-    private long mod(long a) {
-        return (a % modulus + modulus) % modulus;
-    }
-    
     public Polynomial1 normalize() {
-        if (isZero()) return this;
-        long leadCoeff = getLeadingCoefficient();
-        if (leadCoeff == 1) return this;
-
-        long inv = modInverse(leadCoeff, this.modulus);
-        long[] newCoeffs = new long[coefficients.length];
-        for (int i = 0; i < coefficients.length; i++) {
-            newCoeffs[i] = mod(coefficients[i] * inv);
-        }
-        return new Polynomial1(newCoeffs, this.modulus);
+        return with(rep.normalize());
+    }
+
+    // Старший коэффициент при любом размере модуля (0 у нулевого многочлена)
+    public BigInteger getLeadingCoefficientBig() {
+        return rep.coefficient(degree());
     }
 
+    /**
+     * Старший коэффициент в long - только для p в машинном слове (CoefficientField.fits);
+     * при больших модулях бросает ArithmeticException, если коэффициент не помещается в long.
+     * @deprecated используйте {@link #getLeadingCoefficientBig()}
+     */
+    @Deprecated
     public long getLeadingCoefficient() {
-        if (isZero()) return 0;
-        return coefficients[degree()];
+        return getLeadingCoefficientBig().longValueExact();
     }
 
     public Polynomial1 derivative() {
-        if (degree() == 0) return new Polynomial1(this.modulus);
-        long[] newCoeffs = new long[degree()];
-        for (int i = 1; i <= degree(); i++) {
-            newCoeffs[i - 1] = mod(coefficients[i] * i);
-        }
-        return new Polynomial1(newCoeffs, this.modulus);
+        return with(rep.derivative());
     }
 
     public Polynomial1 pthRoot() {
-        if (this.isZero()) return new Polynomial1(this.modulus);
-        long[] newCoeffs = new long[degree() / this.modulus + 1];
-        for (int i = 0; i <= degree(); i++) {
-            if (i % this.modulus == 0) {
-                newCoeffs[i / this.modulus] = coefficients[i];
-            } else if (coefficients[i] != 0) {
-                // Это исключение может быть слишком строгим, лучше просто вернуть null или специальный флаг
-                // Для простоты оставим как есть, но в реальной системе это нужно обработать
-                throw new IllegalArgumentException("Polynomial is not a p-th power.");
-            }
-        }
-        return new Polynomial1(newCoeffs, this.modulus);
+        return with(rep.pthRoot());
     }
 
     public static Polynomial1 gcd(Polynomial1 a, Polynomial1 b, StringBuilder tracer) {
@@ -102,144 +169,243 @@ public class Polynomial1 {
             tracer.append(String.format("   НОД(%s, %s)\n", a, b));
         }
 
-        while (!b.isZero()) {
-            Polynomial1 r = divide(a, b, tracer)[1];
-            a = b;
-            b = r;
-        }
-        return a;
+        return WORKSPACE.get().gcd(a, b);
     }
-    
+
+    // Разреженный делитель обрабатывает SparsePoly, в остальном разреженные многочлены
+    // сначала переводятся в плотную форму
     public static Polynomial1[] divide(Polynomial1 a, Polynomial1 b, StringBuilder tracer) {
         if (b.isZero()) throw new ArithmeticException("Division by zero.");
+        PolyRep divisor = b.rep instanceof PolyRep.Sparse ? b.rep : b.rep.dense();
+        PolyRep[] qr = a.rep.dense().divide(divisor);
+        return new Polynomial1[]{a.with(qr[0]), a.with(qr[1])};
+    }
+
+    /**
+     * Расширенный алгоритм Евклида: {g, s, t}, где g = gcd(a, b) (тот же, что у gcd)
+     * и s*a + t*b = g. Для больших степеней работает через половинный НОД.
+     */
+    public static Polynomial1[] extendedGcd(Polynomial1 a, Polynomial1 b) {
+        PolyRep[] gst = a.rep.dense().extendedGcd(b.rep.dense());
+        return new Polynomial1[]{a.with(gst[0]), a.with(gst[1]), a.with(gst[2])};
+    }
+
+    /**
+     * x^exponent mod f (например, x^p mod f для поиска корней и разложения по степеням).
+     */
+    public static Polynomial1 xPowMod(BigInteger exponent, Polynomial1 f) {
+        return f.with(f.rep.xPowMod(exponent));
+    }
 
-        Polynomial1 quotient = new Polynomial1(a.modulus);
-        Polynomial1 remainder = new Polynomial1(a);
+    /**
+     * base^exponent mod f. Каждое умножение - два быстрых умножения для взятия остатка
+     * (деление Ньютона по f, см. PolyModulus).
+     */
+    public static Polynomial1 powMod(Polynomial1 base, BigInteger exponent, Polynomial1 f) {
+        return f.with(f.rep.powMod(base.rep.dense(), exponent));
+    }
+
+    // Буферы для статических divide и gcd - свои у каждого потока
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+    static Workspace workspace() {
+        return WORKSPACE.get();
+    }
 
-        if (remainder.degree() < b.degree()) {
-            return new Polynomial1[]{quotient, remainder};
+    /**
+     * Рабочая область для деления и НОД без промежуточных объектов: остаток сокращается
+     * на месте в буферах long[], которые растут по мере надобности и переиспользуются
+     * между вызовами. Новые Polynomial1 создаются только для результатов.
+     * Буферы нужны только вычетам в long[] (PolyRep.Words); остальные представления
+     * делятся своей арифметикой (Gf2PolyArith, BigPolyArith, SparsePoly).
+     */
+    public static final class Workspace {
+        private long[] a = new long[16];
+        private long[] b = new long[16];
+        private long[] q = new long[16];
+
+        public Polynomial1[] divide(Polynomial1 x, Polynomial1 y) {
+            if (y.isZero()) throw new ArithmeticException("Division by zero.");
+            if (!(x.rep instanceof PolyRep.Words wx) || !(y.rep instanceof PolyRep.Words wy)) {
+                return Polynomial1.divide(x, y, null);
+            }
+            PolyRep[] qr = divide(wx, wy);
+            return new Polynomial1[]{x.with(qr[0]), x.with(qr[1])};
         }
 
-        long b_lead_inv = modInverse(b.getLeadingCoefficient(), b.modulus);
-        while (!remainder.isZero() && remainder.degree() >= b.degree()) {
-            int deg_diff = remainder.degree() - b.degree();
-            long factor = remainder.mod(remainder.getLeadingCoefficient() * b_lead_inv);
-            
-            long[] term_coeffs = new long[deg_diff + 1];
-            term_coeffs[deg_diff] = factor;
-            Polynomial1 term = new Polynomial1(term_coeffs, a.modulus);
-            
-            quotient = quotient.add(term);
-            Polynomial1 toSubtract = term.multiply(b);
-            remainder = remainder.subtract(toSubtract);
+        public Polynomial1 remainder(Polynomial1 x, Polynomial1 y) {
+            if (y.isZero()) throw new ArithmeticException("Division by zero.");
+            if (!(x.rep instanceof PolyRep.Words wx) || !(y.rep instanceof PolyRep.Words wy)) {
+                return Polynomial1.divide(x, y, null)[1];
+            }
+            int xLen = load(wx, 0);
+            return x.with(PolyRep.Words.of(wx.field, a, reduce(wx.field, a, xLen, wy.coefficients, wy.coefficients.length, null)));
         }
 
-        return new Polynomial1[]{quotient, remainder};
-    }
+        public Polynomial1 gcd(Polynomial1 x, Polynomial1 y) {
+            PolyRep u = x.rep.dense(), v = y.rep.dense();
+            if (u instanceof PolyRep.Words wu && v instanceof PolyRep.Words wv) return x.with(gcd(wu, wv));
+            return x.with(u.gcd(v));
+        }
+
+        PolyRep[] divide(PolyRep.Words x, PolyRep.Words y) {
+            CoefficientField f = x.field;
+            int xLen = load(x, 0);
+            int yLen = y.coefficients.length;
+            if (xLen < yLen) {
+                return new PolyRep[]{x.zero(), PolyRep.Words.of(f, a, xLen)};
+            }
+            int qLen = xLen - yLen + 1;
+            q = ensure(q, qLen);
+            int rLen = reduce(f, a, xLen, y.coefficients, yLen, q);
+            return new PolyRep[]{PolyRep.Words.of(f, q, qLen), PolyRep.Words.of(f, a, rLen)};
+        }
 
-    // ИЗМЕНЕНИЕ: modInverse теперь статический и принимает модуль
-    private static long modInverse(long n, int modulus) {
-        return BigInteger.valueOf(n).modInverse(BigInteger.valueOf(modulus)).longValue();
+        // Алгоритм Евклида целиком в двух буферах; для больших степеней - половинный НОД
+        PolyRep.Words gcd(PolyRep.Words x, PolyRep.Words y) {
+            CoefficientField f = x.field;
+            if (Math.min(x.degree(), y.degree()) > HalfGcd.THRESHOLD) {
+                long[] g = HalfGcd.gcd(f, x.coefficients, y.coefficients);
+                return PolyRep.Words.of(f, g, g.length);
+            }
+            int xLen = load(x, 0);
+            int yLen = load(y, 1);
+            long[] u = a, v = b;
+            while (yLen > 0) {
+                xLen = reduce(f, u, xLen, v, yLen, null);
+                long[] t = u; u = v; v = t;
+                int tl = xLen; xLen = yLen; yLen = tl;
+            }
+            a = u;
+            b = v;
+            return PolyRep.Words.of(f, u, xLen);
+        }
+
+        // Копирует коэффициенты x в буфер 0 (a) или 1 (b) и возвращает длину
+        private int load(PolyRep.Words x, int which) {
+            int len = x.isZero() ? 0 : x.coefficients.length;
+            if (which == 0) {
+                a = ensure(a, len);
+                System.arraycopy(x.coefficients, 0, a, 0, len);
+            } else {
+                b = ensure(b, len);
+                System.arraycopy(x.coefficients, 0, b, 0, len);
+            }
+            return len;
+        }
+
+        private static long[] ensure(long[] buf, int len) {
+            return buf.length >= len ? buf : new long[Math.max(len, buf.length * 2)];
+        }
+
+        /**
+         * Остаток от деления r (длины rLen) на d (длины dLen, старший коэффициент не 0)
+         * на месте: r[0..результат) - остаток. Если quotient не null, туда пишется частное.
+         */
+        static int reduce(CoefficientField f, long[] r, int rLen, long[] d, int dLen, long[] quotient) {
+            long leadInv = f.inverse(d[dLen - 1]);
+            for (int i = rLen - 1; i >= dLen - 1; i--) {
+                int shift = i - dLen + 1;
+                long c = r[i];
+                if (c != 0) {
+                    c = f.mul(c, leadInv);
+                    f.subtractMultiple(r, shift, d, dLen, c);
+                }
+                if (quotient != null) quotient[shift] = c;
+            }
+            int len = Math.min(rLen, dLen - 1);
+            while (len > 0 && r[len - 1] == 0) len--;
+            return len;
+        }
     }
-    
+
+    // Операнды разных видов (разреженный и плотный) сводятся к плотному
     public Polynomial1 add(Polynomial1 other) {
-        int newDegree = Math.max(this.degree(), other.degree());
-        long[] newCoeffs = new long[newDegree + 1];
-        System.arraycopy(this.coefficients, 0, newCoeffs, 0, this.coefficients.length);
-        for (int i = 0; i <= other.degree(); i++) {
-            newCoeffs[i] = mod(newCoeffs[i] + other.coefficients[i]);
-        }
-        return new Polynomial1(newCoeffs, this.modulus);
+        if (rep.getClass() != other.rep.getClass()) return with(rep.dense().add(other.rep.dense()));
+        return with(rep.add(other.rep));
     }
 
     public Polynomial1 subtract(Polynomial1 other) {
-         int newDegree = Math.max(this.degree(), other.degree());
-        long[] newCoeffs = new long[newDegree + 1];
-        System.arraycopy(this.coefficients, 0, newCoeffs, 0, this.coefficients.length);
-        for (int i = 0; i <= other.degree(); i++) {
-            newCoeffs[i] = mod(newCoeffs[i] - other.coefficients[i]);
-        }
-        return new Polynomial1(newCoeffs, this.modulus);
+        if (rep.getClass() != other.rep.getClass()) return with(rep.dense().subtract(other.rep.dense()));
+        return with(rep.subtract(other.rep));
     }
 
     public Polynomial1 multiply(Polynomial1 other) {
-        if (this.isZero() || other.isZero()) return new Polynomial1(this.modulus);
-        int newDegree = this.degree() + other.degree();
-        long[] newCoeffs = new long[newDegree + 1];
-        for (int i = 0; i <= this.degree(); i++) {
-            for (int j = 0; j <= other.degree(); j++) {
-                newCoeffs[i + j] = mod(newCoeffs[i + j] + this.coefficients[i] * other.coefficients[j]);
-            }
-        }
-        return new Polynomial1(newCoeffs, this.modulus);
+        if (this.isZero() || other.isZero()) return with(rep.zero());
+        // Разреженный сомножитель умножает сам, в том числе на плотный
+        if (other.rep instanceof PolyRep.Sparse && !(rep instanceof PolyRep.Sparse)) return with(other.rep.multiply(rep));
+        return with(rep.multiply(other.rep));
     }
     
     // ИЗМЕНЕНИЕ: fromString теперь статический и принимает модуль
     public static Polynomial1 fromString(String s, int modulus) {
-        s = s.replace("-", "+ -").replaceAll("\\s+", "");
-        if (s.startsWith("+")) s = s.substring(1);
+        return fromString(s, BigInteger.valueOf(modulus));
+    }
+
+    // Разбор за один проход (PolyParser); коэффициенты любой длины, так что годятся и вычеты по большим модулям
+    public static Polynomial1 fromString(String s, BigInteger modulus) {
+        return PolyParser.parse(s, modulus);
+    }
+
+    // То же из потока символов - для записей в несколько мегабайт (Reader не закрывается)
+    public static Polynomial1 parse(Reader in, BigInteger modulus) throws IOException {
+        return PolyParser.parse(in, modulus);
+    }
+
+    // То же из байтов ASCII от position до limit буфера (например, отображённого в память файла)
+    public static Polynomial1 parse(ByteBuffer in, BigInteger modulus) {
+        return PolyParser.parse(in, modulus);
+    }
 
-        Map<Integer, Long> coeffMap = new TreeMap<>(Collections.reverseOrder());
-        if (s.isEmpty() || s.equals("0")) {
-            return new Polynomial1(new long[]{0}, modulus);
+    // Чтение и запись в двоичном формате PolyFile (заголовок и упакованные коэффициенты)
+    public static Polynomial1 read(Path path) throws IOException {
+        return PolyFile.read(path);
+    }
+
+    public void write(Path path) throws IOException {
+        PolyFile.write(this, path);
+    }
+
+    /**
+     * Многочлен из count членов exps[i], coeffs[i] в любом порядке (показатели могут
+     * повторяться - коэффициенты складываются); коэффициенты уже приведены, p в машинном слове.
+     * Мало членов при большой степени - сразу разреженная форма, без плотного массива.
+     */
+    static Polynomial1 fromTerms(BigInteger modulus, int[] exps, long[] coeffs, int count) {
+        CoefficientField f = CoefficientField.of(modulus.longValue());
+        int maxDegree = 0;
+        for (int i = 0; i < count; i++) maxDegree = Math.max(maxDegree, exps[i]);
+        if (SparsePoly.preferred(maxDegree, count)) {
+            return ofSparse(modulus, SparsePoly.ofTerms(f, exps, coeffs, count));
         }
-        
-        String[] terms = s.split("\\+");
-        for (String term : terms) {
-            if (term.isEmpty()) continue;
-            long coeff = 1;
-            int degree = 0;
-            if (term.contains("x")) {
-                String[] parts = term.split("x", -1);
-                String coeffPart = parts[0];
-                String degreePart = (parts.length > 1) ? parts[1].replace("^", "") : "";
-                if (coeffPart.isEmpty() || coeffPart.equals("+")) coeff = 1;
-                else if (coeffPart.equals("-")) coeff = -1;
-                else coeff = Long.parseLong(coeffPart);
-                if (degreePart.isEmpty()) degree = 1;
-                else degree = Integer.parseInt(degreePart);
-            } else {
-                coeff = Long.parseLong(term);
-                degree = 0;
-            }
-            long currentCoeff = coeffMap.getOrDefault(degree, 0L);
-            coeffMap.put(degree, currentCoeff + coeff);
+        if (isBinary(modulus)) {
+            long[] words = new long[(maxDegree >>> 6) + 1];
+            for (int i = 0; i < count; i++) words[exps[i] >>> 6] ^= (coeffs[i] & 1) << (exps[i] & 63);
+            return fromBits(words);
         }
-        
-        int maxDegree = coeffMap.keySet().iterator().next();
-        long[] coeffs = new long[maxDegree + 1];
-        for (Map.Entry<Integer, Long> entry : coeffMap.entrySet()) {
-            coeffs[entry.getKey()] = entry.getValue();
+        long[] dense = new long[maxDegree + 1];
+        for (int i = 0; i < count; i++) dense[exps[i]] = f.add(dense[exps[i]], coeffs[i]);
+        return fromBuffer(f, dense);
+    }
+
+    // То же для модулей вне машинного слова
+    static Polynomial1 fromTerms(BigInteger modulus, int[] exps, BigInteger[] coeffs, int count) {
+        int maxDegree = 0;
+        for (int i = 0; i < count; i++) maxDegree = Math.max(maxDegree, exps[i]);
+        BigInteger[] dense = new BigInteger[maxDegree + 1];
+        Arrays.fill(dense, BigInteger.ZERO);
+        for (int i = 0; i < count; i++) {
+            BigInteger sum = dense[exps[i]].add(coeffs[i]);
+            dense[exps[i]] = sum.compareTo(modulus) >= 0 ? sum.subtract(modulus) : sum;
         }
-        return new Polynomial1(coeffs, modulus);
+        return new Polynomial1(modulus, new PolyRep.Big(modulus, BigPolyArith.trim(dense)));
     }
 
     @Override
     public String toString() {
         if (isZero()) return "0";
         StringBuilder sb = new StringBuilder();
-        for (int i = degree(); i >= 0; i--) {
-            long coeff = coefficients[i];
-            if (coeff == 0) continue;
-            
-            String sign = (coeff > 0) ? " + " : " - ";
-            long absCoeff = Math.abs(coeff);
-            
-            if (sb.length() > 0) {
-                sb.append(sign);
-            } else if (coeff < 0) {
-                 sb.append("-");
-            }
-            
-            if (absCoeff != 1 || i == 0) {
-                sb.append(absCoeff);
-            }
-            
-            if (i > 0) {
-                sb.append("x");
-                if (i > 1) sb.append("^").append(i);
-            }
-        }
+        rep.appendTerms(sb);
         return sb.toString();
     }
 
@@ -248,13 +414,16 @@ public class Polynomial1 {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Polynomial1 that = (Polynomial1) o;
-        return modulus == that.modulus && Arrays.equals(coefficients, that.coefficients);
+        if (!modulus.equals(that.modulus)) return false;
+        if (rep.getClass() == that.rep.getClass()) return rep.equals(that.rep);
+        return rep.dense().equals(that.rep.dense());
     }
 
     @Override
     public int hashCode() {
-        int result = Arrays.hashCode(coefficients);
-        result = 31 * result + modulus;
+        // Хэш разреженной формы совпадает с хэшем той же плотной
+        int result = rep.hashCode();
+        result = 31 * result + modulus.hashCode();
         return result;
     }
-}
\ No newline at end of file
+}
@@ -1,16 +1,69 @@
 // Файл: ReportGenerator.java (НОВАЯ ИСПРАВЛЕННАЯ ВЕРСИЯ)
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class ReportGenerator1 {
 
     private final StringBuilder report = new StringBuilder();
-    private final int characteristic;
+    private final BigInteger characteristic;
     private int stepCounter = 1;
+    // Буферы для НОД и деления - общие для всех шагов разложения (только в потоке отчёта)
+    private final Polynomial1.Workspace workspace = new Polynomial1.Workspace();
+    private final CantorZassenhaus factorizer;
+    // Режим Юна: все классы кратности за линейное число НОД, каждый факторизуется один раз
+    private final boolean useYun;
+    // Режим поиска корней: только линейные множители (gcd с x^p - x и расщепление Рабина),
+    // остаток без линейных множителей выводится одним сомножителем
+    private final boolean rootsOnly;
+    private final RootFinder rootFinder;
+    // Параллельный режим: свободные от квадратов части (h на каждом шаге, классы кратности Юна)
+    // раскладываются задачами ForkJoin, пока основной поток продолжает спуск по d(x), а классы
+    // одной степени внутри части расщепляются параллельно (CantorZassenhaus.factorInParallel).
+    // Кратности сводятся в конце, текст отчёта тот же, что и в последовательном режиме.
+    private final boolean parallel;
+    // Текст, зависящий от результатов задач: вставляется в report на запомненное место,
+    // когда все задачи завершены
+    private final List<Insertion> insertions = new ArrayList<>();
+
+    // Свободная от квадратов часть, множители которой входят в ответ с кратностью multiplicity
+    private static final class Part {
+        final ForkJoinTask<SquareFreeFactors> task;
+        final int multiplicity;
+
+        Part(ForkJoinTask<SquareFreeFactors> task, int multiplicity) {
+            this.task = task;
+            this.multiplicity = multiplicity;
+        }
+    }
+
+    // Неприводимые множители части и строка отчёта о них (пустая, если писать нечего)
+    private static final class SquareFreeFactors {
+        final List<Polynomial1> factors;
+        final String log;
+
+        SquareFreeFactors(List<Polynomial1> factors, String log) {
+            this.factors = factors;
+            this.log = log;
+        }
+    }
+
+    private static final class Insertion {
+        final int offset;
+        final Supplier<String> text;
+
+        Insertion(int offset, Supplier<String> text) {
+            this.offset = offset;
+            this.text = text;
+        }
+    }
 
     // Компаратор для красивой сортировки итоговых множителей
     private final Comparator<Polynomial1> polynomialComparator = Comparator
@@ -18,7 +71,25 @@ public class ReportGenerator1 {
             .thenComparing(Polynomial1::toString);
 
     public ReportGenerator1(int characteristic) {
+        this(characteristic, false, false);
+    }
+
+    public ReportGenerator1(int characteristic, boolean useYun, boolean rootsOnly) {
+        this(BigInteger.valueOf(characteristic), useYun, rootsOnly);
+    }
+
+    // Характеристика любого размера: до 2^63 арифметика в машинных словах, дальше - BigInteger
+    public ReportGenerator1(BigInteger characteristic, boolean useYun, boolean rootsOnly) {
+        this(characteristic, useYun, rootsOnly, false);
+    }
+
+    public ReportGenerator1(BigInteger characteristic, boolean useYun, boolean rootsOnly, boolean parallel) {
         this.characteristic = characteristic;
+        this.parallel = parallel;
+        this.factorizer = new CantorZassenhaus(characteristic);
+        this.useYun = useYun;
+        this.rootsOnly = rootsOnly;
+        this.rootFinder = new RootFinder(characteristic, new Random(characteristic.longValue()));
     }
 
     public String generateReport(Polynomial1 p) {
@@ -26,7 +97,14 @@ public class ReportGenerator1 {
         report.append("Факторизуем p(x) = ").append(p).append(" в поле Z_").append(characteristic).append("[x]\n");
 
         // Рекурсивно раскладываем многочлен и собираем множители
-        Map<Polynomial1, Integer> finalFactors = decomposeAndFactor(p);
+        List<Part> parts = useYun ? yunDecomposeAndFactor(p) : decomposeAndFactor(p);
+        Map<Polynomial1, Integer> finalFactors = merge(parts);
+        // Все задачи завершены - дописываем отложенный текст с конца, чтобы не сдвигать позиции
+        for (int i = insertions.size() - 1; i >= 0; i--) {
+            Insertion insertion = insertions.get(i);
+            report.insert(insertion.offset, insertion.text.get());
+        }
+        insertions.clear();
 
         report.append("\n--- Шаг ").append(stepCounter++).append(". Формирование ответа ---\n");
         String finalAnswer = formatFinalAnswer(finalFactors);
@@ -41,12 +119,12 @@ public class ReportGenerator1 {
     /**
      * Главная рекурсивная функция, которая реализует пошаговый алгоритм из лекции.
      * @param p Многочлен для разложения на текущем шаге.
-     * @return Карта "множитель -> его кратность".
+     * @return Свободные от квадратов части с кратностями их множителей (см. merge).
      */
-    private Map<Polynomial1, Integer> decomposeAndFactor(Polynomial1 p) {
+    private List<Part> decomposeAndFactor(Polynomial1 p) {
         // Базовый случай: многочлен - константа, раскладывать нечего.
         if (p.isConstant()) {
-            return new TreeMap<>(polynomialComparator);
+            return new ArrayList<>();
         }
 
         report.append("\n--- Шаг ").append(stepCounter++).append(" ---\n");
@@ -62,79 +140,150 @@ public class ReportGenerator1 {
             report.append("   Извлекаем корень степени p = ").append(characteristic).append(": r(x) = ").append(r).append("\n");
             
             // Факторизуем этот корень r(x). Его множители - это и есть множители p(x), но в степени p.
-            // Вместо рекурсии здесь можно сразу найти его факторы, т.к. он уже будет square-free
-            List<Polynomial1> irreducibleFactors = factorSquareFree(r);
-            report.append("   Ответ для этого шага: ").append(p).append(" = ");
+            // Производная обнуляется только при deg p >= p, так что здесь p помещается в int
+            // r(x) сам может содержать кратные множители (например, (x+1)^2p), поэтому раскладываем его рекурсивно
+            List<Part> rootParts = decomposeAndFactor(r);
 
-            Map<Polynomial1, Integer> factors = new TreeMap<>(polynomialComparator);
-            for(Polynomial1 factor : irreducibleFactors) {
-                factors.put(factor.normalize(), characteristic);
+            List<Part> parts = new ArrayList<>();
+            for (Part part : rootParts) {
+                parts.add(new Part(part.task, part.multiplicity * characteristic.intValueExact()));
             }
-            report.append(formatFinalAnswer(factors)).append("\n");
-            return factors;
+            report.append("   Ответ для этого шага: ").append(p).append(" = ");
+            defer(() -> formatFinalAnswer(merge(parts)));
+            report.append("\n");
+            return parts;
         }
 
         report.append("3) g(x) != 0\n");
         
-        Polynomial1 d = Polynomial1.gcd(p, derivative, null); // Убираем подробный лог НОД, чтобы не загромождать
+        Polynomial1 d = workspace.gcd(p, derivative); // Убираем подробный лог НОД, чтобы не загромождать
         report.append("4) Вычислить d(x) = gcd(p(x), g(x)) = ").append(d).append("\n");
 
-        Polynomial1 h = Polynomial1.divide(p, d, null)[0];
+        Polynomial1 h = workspace.divide(p, d)[0];
         report.append("5) Получить разложение p(x) = d(x) * h(x) = (").append(d).append(") * (").append(h).append(")\n");
         
         // Теперь рекурсивно обрабатываем каждую часть
         // h(x) - это часть, свободная от квадратов
         // d(x) - это часть с оставшимися кратными множителями
         
-        Map<Polynomial1, Integer> finalFactors = new TreeMap<>(polynomialComparator);
+        List<Part> parts = new ArrayList<>();
         
-        // Факторы из h(x) будут иметь кратность 1 (относительно этого шага)
+        // Факторы из h(x) будут иметь кратность 1 (относительно этого шага);
+        // в параллельном режиме h(x) раскладывается, пока мы спускаемся по d(x)
         if (!h.isConstant()) {
             report.append("   -> Часть h(x) = ").append(h).append(" свободна от квадратов. Её множители войдут в ответ в 1-й степени.\n");
-            List<Polynomial1> h_factors = factorSquareFree(h);
-             for(Polynomial1 factor : h_factors) {
-                 finalFactors.merge(factor.normalize(), 1, Integer::sum);
-             }
+            parts.add(new Part(factorSquareFree(h), 1));
         }
 
         // Факторы из d(x) получим рекурсивно, и их кратности увеличатся на 1
         if (!d.isConstant()) {
             report.append("   -> Часть d(x) = ").append(d).append(" содержит кратные множители. Переходим к следующему шагу для её разложения.\n");
-            Map<Polynomial1, Integer> d_factors = decomposeAndFactor(d);
-            for (Map.Entry<Polynomial1, Integer> entry : d_factors.entrySet()) {
-                finalFactors.merge(entry.getKey(), entry.getValue(), Integer::sum);
-            }
+            parts.addAll(decomposeAndFactor(d));
         }
         
-        return finalFactors;
+        return parts;
     }
 
-    // Простой метод факторизации для свободных от квадратов многочленов
-    // (находит только линейные множители)
-    private List<Polynomial1> factorSquareFree(Polynomial1 p) {
-        List<Polynomial1> factors = new ArrayList<>();
-        Polynomial1 remainder = new Polynomial1(p);
-        
-        if (remainder.degree() < 1) return factors;
+    /**
+     * Разложение на свободные от квадратов множители алгоритмом Юна (вариант для поля
+     * характеристики p): c = gcd(p, p'), w = p / c - произведение множителей с кратностью,
+     * не делящейся на p; на i-м шаге y = gcd(w, c), и w / y - произведение множителей
+     * кратности ровно i. Остаток c - p-я степень, из него извлекается корень и он
+     * раскладывается так же, с кратностями, умноженными на p.
+     * Каждый класс кратности передаётся факторизации ровно один раз.
+     */
+    private List<Part> yunDecomposeAndFactor(Polynomial1 p) {
+        List<Part> parts = new ArrayList<>();
+        Polynomial1 current = p;
+        int multiplier = 1;
+        while (!current.isConstant()) {
+            report.append("\n--- Шаг ").append(stepCounter++).append(" (алгоритм Юна) ---\n");
+            report.append("1) p(x) = ").append(current).append("\n");
+            Polynomial1 derivative = current.derivative();
+            report.append("2) g(x) = p'(x) = ").append(derivative).append("\n");
 
-        for (long a = 0; a < characteristic; a++) {
-            Polynomial1 linearFactor = new Polynomial1(new long[]{(characteristic - a) % characteristic, 1}, characteristic);
-            if (!remainder.isConstant() && Polynomial1.divide(remainder, linearFactor, null)[1].isZero()) {
-                factors.add(linearFactor);
-                remainder = Polynomial1.divide(remainder, linearFactor, null)[0];
+            Polynomial1 c = current;
+            if (!derivative.isZero()) {
+                c = workspace.gcd(current, derivative);
+                Polynomial1 w = workspace.divide(current, c)[0];
+                report.append("3) c(x) = gcd(p(x), g(x)) = ").append(c).append(", w(x) = p(x) / c(x) = ").append(w).append("\n");
+                for (int i = 1; !w.isConstant(); i++) {
+                    Polynomial1 y = workspace.gcd(w, c);
+                    Polynomial1 z = workspace.divide(w, y)[0];
+                    if (!z.isConstant()) {
+                        int exp = i * multiplier;
+                        report.append("   i = ").append(i).append(": y(x) = gcd(w, c) = ").append(y)
+                                .append(", множители кратности ").append(exp).append(": w / y = ").append(z).append("\n");
+                        parts.add(new Part(factorSquareFree(z), exp));
+                    }
+                    w = y;
+                    c = workspace.divide(c, y)[0];
+                }
+            } else {
+                report.append("3) g(x) = 0. Для p(x) имеет место условие v(x^p) = [v(x)]^p.\n");
             }
+
+            if (c.isConstant()) break;
+            // Оставшиеся множители входят с кратностями, кратными p
+            current = c.pthRoot();
+            multiplier *= characteristic.intValueExact();
+            report.append("4) c(x) = ").append(c).append(" = r(x)^").append(characteristic)
+                    .append(", r(x) = ").append(current).append(". Кратности множителей r(x) умножаются на ")
+                    .append(multiplier).append(".\n");
         }
-        
-        if (!remainder.isConstant()) {
-            factors.add(remainder);
+        return parts;
+    }
+
+    // Разложение свободного от квадратов многочлена: в параллельном режиме - отдельной задачей,
+    // иначе сразу. Строка отчёта о нём встаёт на текущее место, когда задача завершится.
+    private ForkJoinTask<SquareFreeFactors> factorSquareFree(Polynomial1 p) {
+        ForkJoinTask<SquareFreeFactors> task = ForkJoinTask.adapt(() -> squareFreeFactors(p));
+        if (parallel) task.fork();
+        else task.invoke();
+        defer(() -> task.join().log);
+        return task;
+    }
+
+    // Разложение свободного от квадратов многочлена на неприводимые множители
+    // (по степеням, затем расщепление Кантора-Цассенхауса). Может выполняться в любом потоке:
+    // не трогает report и workspace.
+    private SquareFreeFactors squareFreeFactors(Polynomial1 p) {
+        if (p.degree() < 1) return new SquareFreeFactors(new ArrayList<>(), "");
+        if (!rootsOnly) {
+            return new SquareFreeFactors(parallel ? factorizer.factorInParallel(p) : factorizer.factor(p), "");
         }
 
-        if (factors.isEmpty() && !p.isConstant()) {
-            factors.add(p);
+        Polynomial1 linear = rootFinder.linearPart(p);
+        List<Polynomial1> factors = rootFinder.split(linear);
+        String log = "   Корни (gcd(h, x^p - x) = " + linear + ", расщепление Рабина): "
+                + (factors.isEmpty() ? "нет" : factors.stream()
+                        .map(rootFinder::rootOf)
+                        .sorted()
+                        .map(String::valueOf)
+                        .collect(Collectors.joining(", ")))
+                + "\n";
+        Polynomial1 rest = Polynomial1.divide(p.normalize(), linear, null)[0];
+        if (!rest.isConstant()) {
+            factors.add(rest);
+        }
+        return new SquareFreeFactors(factors, log);
+    }
+
+    // Ждёт задачи частей и сводит кратности: множитель части с кратностью k входит в ответ k раз
+    private Map<Polynomial1, Integer> merge(List<Part> parts) {
+        Map<Polynomial1, Integer> factors = new TreeMap<>(polynomialComparator);
+        for (Part part : parts) {
+            for (Polynomial1 factor : part.task.join().factors) {
+                factors.merge(factor.normalize(), part.multiplicity, Integer::sum);
+            }
         }
         return factors;
     }
 
+    private void defer(Supplier<String> text) {
+        insertions.add(new Insertion(report.length(), text));
+    }
+
     private String formatFinalAnswer(Map<Polynomial1, Integer> factors) {
         if (factors.isEmpty()) return "1";
 
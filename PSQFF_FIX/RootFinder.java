@@ -0,0 +1,83 @@
+// Файл: RootFinder.java
+// Корни многочлена над GF(p) без перебора всех a из 0..p-1:
+// 1) g = gcd(f, x^p - x) - произведение (x - a) по всем различным корням a
+//    (x^p mod f считается быстрым возведением в степень, O(log p) умножений по модулю f);
+// 2) расщепление Рабина: для случайного сдвига d многочлен (x + d)^((p-1)/2) - 1 обращается
+//    в ноль ровно в тех корнях a, для которых a + d - ненулевой квадрат, поэтому
+//    gcd(g, (x + d)^((p-1)/2) - 1) с вероятностью около 1/2 делит корни на две части.
+// Время полилогарифмично по p.
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+final class RootFinder {
+
+    private final BigInteger p;
+    private final Random random;
+
+    RootFinder(BigInteger characteristic, Random random) {
+        this.p = characteristic;
+        this.random = random;
+    }
+
+    // Равномерно распределённый вычет из [0, p): случайные биты длины p с отбраковкой
+    static BigInteger randomResidue(BigInteger p, Random random) {
+        BigInteger r;
+        do {
+            r = new BigInteger(p.bitLength(), random);
+        } while (r.compareTo(p) >= 0);
+        return r;
+    }
+
+    /**
+     * Нормированное произведение (x - a) по всем различным корням a многочлена f.
+     */
+    Polynomial1 linearPart(Polynomial1 f) {
+        Polynomial1 monic = f.normalize();
+        if (monic.degree() <= 1) return monic;
+        Polynomial1 x = new Polynomial1(new long[]{0, 1}, p);
+        Polynomial1 xp = Polynomial1.xPowMod(p, monic);
+        return Polynomial1.gcd(monic, xp.subtract(x), null).normalize();
+    }
+
+    /**
+     * Линейные множители x - a нормированного произведения различных линейных множителей g.
+     */
+    List<Polynomial1> split(Polynomial1 g) {
+        List<Polynomial1> result = new ArrayList<>();
+        if (g.isConstant()) return result;
+        List<Polynomial1> pending = new ArrayList<>();
+        pending.add(g);
+        BigInteger half = p.subtract(BigInteger.ONE).shiftRight(1);
+        while (!pending.isEmpty()) {
+            Polynomial1 h = pending.remove(pending.size() - 1);
+            if (h.degree() == 1) {
+                result.add(h);
+                continue;
+            }
+            if (p.equals(BigInteger.TWO)) {
+                // h = x(x + 1)
+                result.add(new Polynomial1(new long[]{0, 1}, p));
+                result.add(new Polynomial1(new long[]{1, 1}, p));
+                continue;
+            }
+            Polynomial1 part;
+            do {
+                BigInteger shift = randomResidue(p, random);
+                Polynomial1 base = new Polynomial1(new BigInteger[]{shift, BigInteger.ONE}, p);
+                Polynomial1 b = Polynomial1.powMod(base, half, h).subtract(new Polynomial1(new long[]{1}, p));
+                part = Polynomial1.gcd(h, b, null).normalize();
+            } while (part.isConstant() || part.degree() == h.degree());
+            pending.add(part);
+            pending.add(Polynomial1.divide(h, part, null)[0]);
+        }
+        return result;
+    }
+
+    // Корень нормированного x + c - это -c
+    BigInteger rootOf(Polynomial1 linear) {
+        BigInteger c = linear.coefficient(0);
+        return c.signum() == 0 ? c : p.subtract(c);
+    }
+}
@@ -0,0 +1,466 @@
+// Файл: SparsePoly.java
+// Разреженный многочлен над Z_p (p в машинном слове): только ненулевые члены, показатели
+// по возрастанию и коэффициенты в двух параллельных массивах. Трёхчлен x^1000000 + x + 1
+// занимает три элемента, а не миллион.
+// Polynomial1 выбирает это представление сам, когда членов мало относительно степени
+// (preferred), и переходит к плотному, где разреженность не помогает (НОД и т.п.).
+// - сложение и вычитание - слияние отсортированных членов;
+// - умножение разреженного на плотный - сумма сдвинутых кратных плотного, O(t * n);
+// - деление на разреженный делитель: шаг столбика вычитает t - 1 членов вместо deg f,
+//   так что остаток по трёхчлену стоит O(n), а не O(n * deg f) и не два умножения Ньютона;
+// - на этом - возведение в степень по модулю разреженного f (x^p mod f для поиска корней).
+// Для p = 2 те же операции есть над упакованными битами (Gf2PolyArith): все коэффициенты 1.
+import java.math.BigInteger;
+import java.util.Arrays;
+
+final class SparsePoly {
+
+    // Разреженная форма выбирается от этой степени, если членов не больше (deg + 1) / DENSITY_RATIO
+    static final int MIN_DEGREE = 256;
+    static final int DENSITY_RATIO = 16;
+    // Больше попарных произведений членов - дешевле перемножить плотные формы
+    private static final int MAX_TERM_PRODUCTS = 1 << 20;
+
+    private final CoefficientField field;
+    private final int[] exponents;     // по возрастанию
+    private final long[] coefficients; // ненулевые вычеты
+
+    private SparsePoly(CoefficientField field, int[] exponents, long[] coefficients) {
+        this.field = field;
+        this.exponents = exponents;
+        this.coefficients = coefficients;
+    }
+
+    static boolean preferred(int degree, int terms) {
+        return degree >= MIN_DEGREE && (long) terms * DENSITY_RATIO <= degree + 1L;
+    }
+
+    // Члены с показателями по возрастанию; нулевые коэффициенты отбрасываются
+    static SparsePoly of(CoefficientField field, int[] exponents, long[] coefficients, int count) {
+        int n = 0;
+        for (int i = 0; i < count; i++) if (coefficients[i] != 0) n++;
+        int[] e = new int[n];
+        long[] c = new long[n];
+        for (int i = 0, k = 0; i < count; i++) {
+            if (coefficients[i] != 0) {
+                e[k] = exponents[i];
+                c[k++] = coefficients[i];
+            }
+        }
+        return new SparsePoly(field, e, c);
+    }
+
+    // Члены в любом порядке, с повторами показателей: сортировка по ключу (показатель, номер)
+    static SparsePoly ofTerms(CoefficientField field, int[] exponents, long[] coefficients, int count) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) keys[i] = ((long) exponents[i] << 32) | i;
+        Arrays.sort(keys);
+        int[] e = new int[count];
+        long[] c = new long[count];
+        int n = 0;
+        for (long key : keys) {
+            int exp = (int) (key >>> 32);
+            long value = coefficients[(int) key];
+            if (n > 0 && e[n - 1] == exp) {
+                c[n - 1] = field.add(c[n - 1], value);
+            } else {
+                e[n] = exp;
+                c[n++] = value;
+            }
+        }
+        return of(field, e, c, n);
+    }
+
+    static SparsePoly fromDense(CoefficientField field, long[] a, int len) {
+        int n = 0;
+        for (int i = 0; i < len; i++) if (a[i] != 0) n++;
+        int[] e = new int[n];
+        long[] c = new long[n];
+        for (int i = 0, k = 0; i < len; i++) {
+            if (a[i] != 0) {
+                e[k] = i;
+                c[k++] = a[i];
+            }
+        }
+        return new SparsePoly(field, e, c);
+    }
+
+    static SparsePoly fromBits(long[] bits) {
+        int n = 0;
+        for (long w : bits) n += Long.bitCount(w);
+        int[] e = new int[n];
+        long[] c = new long[n];
+        for (int w = 0, k = 0; w < bits.length; w++) {
+            for (long x = bits[w]; x != 0; x &= x - 1) {
+                e[k] = 64 * w + Long.numberOfTrailingZeros(x);
+                c[k++] = 1;
+            }
+        }
+        return new SparsePoly(CoefficientField.of(2), e, c);
+    }
+
+    // Число ненулевых членов плотного массива
+    static int countTerms(long[] a, int len) {
+        int n = 0;
+        for (int i = 0; i < len; i++) if (a[i] != 0) n++;
+        return n;
+    }
+
+    static int countBits(long[] bits) {
+        int n = 0;
+        for (long w : bits) n += Long.bitCount(w);
+        return n;
+    }
+
+    CoefficientField field() {
+        return field;
+    }
+
+    int terms() {
+        return exponents.length;
+    }
+
+    boolean isZero() {
+        return exponents.length == 0;
+    }
+
+    int degree() {
+        return exponents.length == 0 ? 0 : exponents[exponents.length - 1];
+    }
+
+    long leadingCoefficient() {
+        return exponents.length == 0 ? 0 : coefficients[coefficients.length - 1];
+    }
+
+    // Для PolyFile: массивы не копируются и не должны меняться
+    int[] exponentArray() {
+        return exponents;
+    }
+
+    long[] coefficientArray() {
+        return coefficients;
+    }
+
+    int exponent(int k) {
+        return exponents[k];
+    }
+
+    long coefficientAt(int k) {
+        return coefficients[k];
+    }
+
+    long coefficient(int e) {
+        int k = Arrays.binarySearch(exponents, e);
+        return k >= 0 ? coefficients[k] : 0;
+    }
+
+    boolean sameTerms(SparsePoly o) {
+        return Arrays.equals(exponents, o.exponents) && Arrays.equals(coefficients, o.coefficients);
+    }
+
+    long[] toDense() {
+        long[] a = new long[degree() + 1];
+        for (int k = 0; k < exponents.length; k++) a[exponents[k]] = coefficients[k];
+        return a;
+    }
+
+    long[] toBits() {
+        long[] bits = new long[exponents.length == 0 ? 0 : (degree() >>> 6) + 1];
+        for (int e : exponents) bits[e >>> 6] |= 1L << (e & 63);
+        return bits;
+    }
+
+    // ---- операции, сохраняющие разреженность ----
+
+    SparsePoly add(SparsePoly o) {
+        return merge(o, false);
+    }
+
+    SparsePoly subtract(SparsePoly o) {
+        return merge(o, true);
+    }
+
+    private SparsePoly merge(SparsePoly o, boolean negate) {
+        int n = exponents.length, m = o.exponents.length;
+        int[] e = new int[n + m];
+        long[] c = new long[n + m];
+        int i = 0, j = 0, k = 0;
+        while (i < n || j < m) {
+            if (j == m || (i < n && exponents[i] < o.exponents[j])) {
+                e[k] = exponents[i];
+                c[k++] = coefficients[i++];
+            } else {
+                long oc = negate ? field.negate(o.coefficients[j]) : o.coefficients[j];
+                if (i < n && exponents[i] == o.exponents[j]) {
+                    e[k] = exponents[i];
+                    c[k++] = field.add(coefficients[i++], oc);
+                } else {
+                    e[k] = o.exponents[j];
+                    c[k++] = oc;
+                }
+                j++;
+            }
+        }
+        return of(field, e, c, k);
+    }
+
+    boolean canMultiply(SparsePoly o) {
+        return (long) terms() * o.terms() <= MAX_TERM_PRODUCTS;
+    }
+
+    /**
+     * Произведение разреженных: все попарные произведения членов, упорядоченные по показателю
+     * (показатель в старших 32 битах ключа, номер произведения - в младших).
+     */
+    SparsePoly multiply(SparsePoly o) {
+        int n = terms(), m = o.terms();
+        long[] keys = new long[n * m];
+        long[] products = new long[n * m];
+        for (int i = 0, k = 0; i < n; i++) {
+            for (int j = 0; j < m; j++, k++) {
+                keys[k] = ((long) (exponents[i] + o.exponents[j]) << 32) | k;
+                products[k] = field.mul(coefficients[i], o.coefficients[j]);
+            }
+        }
+        Arrays.sort(keys);
+        int[] e = new int[keys.length];
+        long[] c = new long[keys.length];
+        int count = 0;
+        for (long key : keys) {
+            int exp = (int) (key >>> 32);
+            long value = products[(int) key];
+            if (count > 0 && e[count - 1] == exp) {
+                c[count - 1] = field.add(c[count - 1], value);
+            } else {
+                e[count] = exp;
+                c[count++] = value;
+            }
+        }
+        return of(field, e, c, count);
+    }
+
+    SparsePoly scale(long s) {
+        long[] c = new long[coefficients.length];
+        for (int k = 0; k < c.length; k++) c[k] = field.mul(coefficients[k], s);
+        return of(field, exponents, c, c.length);
+    }
+
+    SparsePoly derivative() {
+        int[] e = new int[exponents.length];
+        long[] c = new long[exponents.length];
+        int count = 0;
+        for (int k = 0; k < exponents.length; k++) {
+            if (exponents[k] == 0) continue;
+            e[count] = exponents[k] - 1;
+            c[count++] = field.mul(coefficients[k], field.reduce(exponents[k]));
+        }
+        return of(field, e, c, count);
+    }
+
+    // r(x), для которого r(x^p) равен этому многочлену (p - характеристика)
+    SparsePoly pthRoot(long p) {
+        int[] e = new int[exponents.length];
+        for (int k = 0; k < e.length; k++) {
+            if (exponents[k] % p != 0) throw new IllegalArgumentException("Polynomial is not a p-th power.");
+            e[k] = (int) (exponents[k] / p);
+        }
+        return new SparsePoly(field, e, coefficients);
+    }
+
+    // ---- разреженный на плотный, p в машинном слове ----
+
+    /**
+     * this * b[0..bLen) в плотной форме длины deg + bLen.
+     */
+    long[] multiplyDense(long[] b, int bLen) {
+        long[] out = new long[degree() + bLen];
+        for (int k = 0; k < exponents.length; k++) {
+            field.subtractMultiple(out, exponents[k], b, bLen, field.negate(coefficients[k]));
+        }
+        return out;
+    }
+
+    /**
+     * Частное и остаток a[0..aLen) / this; остаток - массив длины deg.
+     */
+    long[][] divide(long[] a, int aLen) {
+        int d = degree();
+        long[] r = Arrays.copyOf(a, Math.max(aLen, d));
+        if (aLen <= d) return new long[][]{new long[0], r};
+        long[] q = new long[aLen - d];
+        long leadInv = field.inverse(leadingCoefficient());
+        int low = exponents.length - 1; // члены кроме старшего
+        for (int i = aLen - 1; i >= d; i--) {
+            long c = r[i];
+            if (c == 0) continue;
+            c = field.mul(c, leadInv);
+            q[i - d] = c;
+            r[i] = 0;
+            int shift = i - d;
+            for (int k = 0; k < low; k++) {
+                int j = shift + exponents[k];
+                r[j] = field.sub(r[j], field.mul(c, coefficients[k]));
+            }
+        }
+        return new long[][]{q, Arrays.copyOf(r, d)};
+    }
+
+    /**
+     * base^e mod this; base - остаток (длина не больше deg).
+     */
+    long[] powMod(long[] base, BigInteger e) {
+        int d = degree();
+        long[] result = new long[d];
+        if (d == 0) return result;
+        result[0] = 1;
+        for (int bit = e.bitLength() - 1; bit >= 0; bit--) {
+            result = multiplyMod(result, result);
+            if (e.testBit(bit)) {
+                result = multiplyMod(result, base);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * x^e mod this: умножение на x - сдвиг и вычитание не больше t - 1 членов.
+     */
+    long[] xPowMod(BigInteger e) {
+        int d = degree();
+        long[] result = new long[d];
+        if (d == 0) return result;
+        result[0] = 1;
+        long leadInv = field.inverse(leadingCoefficient());
+        for (int bit = e.bitLength() - 1; bit >= 0; bit--) {
+            result = multiplyMod(result, result);
+            if (e.testBit(bit)) {
+                long top = result[d - 1];
+                System.arraycopy(result, 0, result, 1, d - 1);
+                result[0] = 0;
+                if (top != 0) {
+                    long c = field.mul(top, leadInv);
+                    for (int k = 0; k < exponents.length - 1; k++) {
+                        int j = exponents[k];
+                        result[j] = field.sub(result[j], field.mul(c, coefficients[k]));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private long[] multiplyMod(long[] a, long[] b) {
+        long[] product = PolyMultiply.multiply(field, a, a.length, b, b.length);
+        return divide(product, product.length)[1];
+    }
+
+    // ---- разреженный на упакованный, p = 2 ----
+
+    long[] multiplyBits(long[] bits) {
+        if (bits.length == 0) return bits;
+        long[] out = new long[((degree() + 64 * bits.length) >>> 6) + 1];
+        for (int e : exponents) {
+            int w = e >>> 6, s = e & 63;
+            for (int i = 0; i < bits.length; i++) {
+                out[w + i] ^= bits[i] << s;
+                if (s != 0) out[w + i + 1] ^= bits[i] >>> (64 - s);
+            }
+        }
+        return Gf2PolyArith.trim(out);
+    }
+
+    /**
+     * Частное и остаток упакованного a по этому многочлену (над GF(2) все коэффициенты 1).
+     */
+    long[][] divideBits(long[] a) {
+        int d = degree();
+        int da = Gf2PolyArith.degree(a);
+        if (da < d) return new long[][]{Gf2PolyArith.ZERO, a};
+        long[] r = Arrays.copyOf(a, a.length);
+        long[] q = new long[((da - d) >>> 6) + 1];
+        int low = exponents.length - 1;
+        for (int i = da; i >= d; i--) {
+            long word = r[i >>> 6];
+            if (word == 0) {
+                i &= ~63; // всё слово нулевое - сразу к предыдущему
+                continue;
+            }
+            if ((word >>> (i & 63) & 1) == 0) continue;
+            r[i >>> 6] = word ^ (1L << (i & 63));
+            int shift = i - d;
+            q[shift >>> 6] |= 1L << (shift & 63);
+            for (int k = 0; k < low; k++) {
+                int j = shift + exponents[k];
+                r[j >>> 6] ^= 1L << (j & 63);
+            }
+        }
+        return new long[][]{Gf2PolyArith.trim(q), Gf2PolyArith.trim(r)};
+    }
+
+    long[] powModBits(long[] base, BigInteger e) {
+        if (degree() == 0) return Gf2PolyArith.ZERO;
+        long[] b = divideBits(base)[1];
+        long[] result = {1};
+        for (int bit = e.bitLength() - 1; bit >= 0; bit--) {
+            result = divideBits(Gf2PolyArith.square(result))[1];
+            if (e.testBit(bit)) {
+                result = divideBits(Gf2PolyArith.multiply(result, b))[1];
+            }
+        }
+        return result;
+    }
+
+    long[] xPowModBits(BigInteger e) {
+        if (degree() == 0) return Gf2PolyArith.ZERO;
+        long[] x = {2};
+        long[] result = {1};
+        for (int bit = e.bitLength() - 1; bit >= 0; bit--) {
+            result = divideBits(Gf2PolyArith.square(result))[1];
+            if (e.testBit(bit)) {
+                result = divideBits(Gf2PolyArith.multiply(result, x))[1];
+            }
+        }
+        return result;
+    }
+
+    // ---- хэши, совпадающие с Arrays.hashCode плотных форм ----
+
+    // Arrays.hashCode(toDense()) без построения массива: 31^n + sum h(c_i) * 31^(n-1-i)
+    int denseHash() {
+        int n = degree() + 1;
+        int h = pow31(n);
+        for (int k = 0; k < exponents.length; k++) {
+            h += Long.hashCode(coefficients[k]) * pow31(n - 1 - exponents[k]);
+        }
+        return h;
+    }
+
+    // Arrays.hashCode(toBits()) тем же способом по словам
+    int bitsHash() {
+        long[] words = new long[exponents.length];
+        int[] index = new int[exponents.length];
+        int count = 0;
+        for (int e : exponents) {
+            int w = e >>> 6;
+            if (count == 0 || index[count - 1] != w) {
+                index[count] = w;
+                words[count++] = 0;
+            }
+            words[count - 1] |= 1L << (e & 63);
+        }
+        int n = exponents.length == 0 ? 0 : (degree() >>> 6) + 1;
+        int h = pow31(n);
+        for (int k = 0; k < count; k++) h += Long.hashCode(words[k]) * pow31(n - 1 - index[k]);
+        return h;
+    }
+
+    private static int pow31(int n) {
+        int result = 1, base = 31;
+        while (n > 0) {
+            if ((n & 1) != 0) result *= base;
+            base *= base;
+            n >>= 1;
+        }
+        return result;
+    }
+}
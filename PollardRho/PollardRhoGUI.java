@@ -11,11 +11,15 @@ import java.util.concurrent.ExecutionException;
 
 public class PollardRhoGUI extends JFrame {
 
+    private static final Trace.Level SUMMARY = Trace.Level.SUMMARY;
+    private static final Trace.Level FULL = Trace.Level.FULL;
+
     private final JTextField aField = new JTextField(20);
     private final JTextField bField = new JTextField(20);
     private final JTextField pField = new JTextField(20);
     private final JButton solveButton = new JButton("Найти x");
     private final JTextArea resultArea = new JTextArea(10, 40);
+    private final JComboBox<Trace.Level> traceLevelBox = new JComboBox<>(Trace.Level.values());
 
     private static class PollardState {
         final BigInteger z, u, v;
@@ -50,17 +54,26 @@ public class PollardRhoGUI extends JFrame {
         gbc.gridx = 1; gbc.gridy = 1; add(bField, gbc);
         gbc.gridx = 1; gbc.gridy = 2; add(pField, gbc);
 
+        gbc.gridx = 0; gbc.gridy = 3;
+        gbc.anchor = GridBagConstraints.EAST;
+        gbc.fill = GridBagConstraints.NONE;
+        add(new JLabel("Журнал:"), gbc);
+        gbc.gridx = 1; gbc.gridy = 3;
+        gbc.anchor = GridBagConstraints.WEST;
+        traceLevelBox.setSelectedItem(Trace.Level.FULL);
+        add(traceLevelBox, gbc);
+
         gbc.anchor = GridBagConstraints.CENTER; 
         gbc.fill = GridBagConstraints.NONE;
         gbc.weightx = 0.0;
         gbc.gridwidth = 2; 
-        gbc.gridx = 0; gbc.gridy = 3;
+        gbc.gridx = 0; gbc.gridy = 4;
         add(solveButton, gbc);
 
         gbc.fill = GridBagConstraints.BOTH; 
         gbc.weightx = 1.0; 
         gbc.weighty = 1.0; 
-        gbc.gridx = 0; gbc.gridy = 4;
+        gbc.gridx = 0; gbc.gridy = 5;
         
         resultArea.setEditable(false);
         resultArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
@@ -79,7 +92,7 @@ public class PollardRhoGUI extends JFrame {
                 resultArea.setText("Генерирую таблицу и ищу коллизию...\n" + 
                                    a + "^x ≡ " + b + " (mod " + p + ")\n");
                 solveButton.setEnabled(false); 
-                new SolverTask(a, b, p).execute(); 
+                new SolverTask(a, b, p, new Trace((Trace.Level) traceLevelBox.getSelectedItem())).execute(); 
 
             } catch (NumberFormatException ex) {
                 resultArea.setText("Ошибка: Введите корректные целые числа.");
@@ -92,119 +105,198 @@ public class PollardRhoGUI extends JFrame {
         setLocationRelativeTo(null); 
     }
 
-    private class SolverTask extends SwingWorker<String, Void> {
+    // Возвращает x или null, если обратного элемента не существует; ход решения - в trace
+    private class SolverTask extends SwingWorker<BigInteger, Void> {
         private final BigInteger a, b, p;
+        private final Trace trace;
 
-        SolverTask(BigInteger a, BigInteger b, BigInteger p) {
+        SolverTask(BigInteger a, BigInteger b, BigInteger p, Trace trace) {
             this.a = a;
             this.b = b;
             this.p = p;
+            this.trace = trace;
         }
 
         @Override
-        protected String doInBackground() throws Exception {
-            StringBuilder sb = new StringBuilder(); 
+        protected BigInteger doInBackground() throws Exception {
             BigInteger pMinus1 = p.subtract(BigInteger.ONE);
 
-            sb.append("Определяем интервалы для z_i:\n");
+            trace.message(SUMMARY, "Определяем интервалы для z_i:");
             BigDecimal p_dec = new BigDecimal(p);
             BigDecimal p_div_3_dec = p_dec.divide(new BigDecimal(3), 2, RoundingMode.FLOOR);
             BigDecimal p_mul_2_div_3_dec = p_dec.multiply(new BigDecimal(2)).divide(new BigDecimal(3), 2, RoundingMode.FLOOR);
-            sb.append(String.format("T1:    0        < z_i <= %s (%s/3)\n", p_div_3_dec, p));
-            sb.append(String.format("T2:    %s  < z_i <= %s (2*%s/3)\n", p_div_3_dec, p_mul_2_div_3_dec, p));
-            sb.append(String.format("T3:    %s < z_i <    %s\n\n", p_mul_2_div_3_dec, p));
+            trace.message(SUMMARY, "T1:    0        < z_i <= %s (%s/3)", p_div_3_dec, p);
+            trace.message(SUMMARY, "T2:    %s  < z_i <= %s (2*%s/3)", p_div_3_dec, p_mul_2_div_3_dec, p);
+            trace.message(SUMMARY, "T3:    %s < z_i <    %s\n", p_mul_2_div_3_dec, p);
+
+            // p помещается в машинное слово - итерации идут в long, BigInteger только для журнала
+            ModArith.Modulus word = ModArith.forModulus(p);
+            if (word != null) {
+                return iterateWord(word, pMinus1);
+            }
 
             ArrayList<PollardState> history = new ArrayList<>();
-            Map<BigInteger, Integer> zMap = new HashMap<>(); 
+            Map<BigInteger, Long> zMap = new HashMap<>(); 
 
             PollardState currentState = new PollardState(BigInteger.ONE, BigInteger.ZERO, BigInteger.ZERO);
             history.add(currentState);
-            zMap.put(currentState.z, 0);
+            zMap.put(currentState.z, 0L);
+            long limit = iterationLimit();
+
+            traceHeader();
+            traceRow(0, currentState);
 
             // ИЗМЕНЕНИЕ: k -> j (индекс текущей, большей итерации)
-            int j = 1; 
+            long j = 1; 
             while (true) {
                 PollardState nextState = nextStep(currentState);
 
                 if (zMap.containsKey(nextState.z)) {
                     // ИЗМЕНЕНИЕ: j -> k (индекс прошлой, меньшей итерации)
-                    int k = zMap.get(nextState.z);
+                    long k = zMap.get(nextState.z);
                     history.add(nextState); 
-
-                    sb.append(String.format("%-4s | %-5s | %-5s | %-5s\n", "i", "u_i", "v_i", "z_i"));
-                    sb.append("---------------------------\n");
-                    for (int i = 0; i < history.size(); i++) {
-                        PollardState s = history.get(i);
-                        sb.append(String.format("%-4d | %-5s | %-5s | %-5s\n", i, s.u, s.v, s.z));
-                    }
-                    sb.append("\n");
-
-                    // ИЗМЕНЕНИЕ: Правильный порядок k и j
-                    sb.append(String.format("Коллизия найдена: z_%d = z_%d = %s\n", k, j, nextState.z));
-                    
-                    PollardState state_k = history.get(k); // Состояние с меньшим индексом
-                    PollardState state_j = nextState;      // Состояние с большим индексом
-
-                    BigInteger u_k = state_k.u; BigInteger v_k = state_k.v;
-                    BigInteger u_j = state_j.u; BigInteger v_j = state_j.v;
-                    
-                    // ИЗМЕНЕНИЕ: Правильный порядок j и k
-                    sb.append(String.format("j = %d, k = %d\n", j, k));
-                    sb.append(String.format("u_%d = %s, v_%d = %s\n", j, u_j, j, v_j));
-                    sb.append(String.format("u_%d = %s, v_%d = %s\n", k, u_k, k, v_k));
-                    sb.append("\n");
-                    
-                    // ИЗМЕНЕНИЕ: Используем правильную формулу (u_j - u_k) и (v_k - v_j)
-                    BigInteger u_diff_raw = u_j.subtract(u_k);
-                    BigInteger v_diff_raw = v_k.subtract(v_j);
-
-                    sb.append(String.format("x ≡ (u_%d - u_%d)⁻¹ * (v_%d - v_%d) mod (%s - 1)\n", j, k, k, j, p));
-                    sb.append(String.format("x ≡ (%s - %s)⁻¹ * (%s - %s) mod %s\n", u_j, u_k, v_k, v_j, pMinus1));
-                    sb.append(String.format("x ≡ (%s)⁻¹ * (%s) mod %s\n", u_diff_raw, v_diff_raw, pMinus1));
-                    
-                    BigInteger u_diff_mod = u_diff_raw.mod(pMinus1);
-                    if (!u_diff_mod.gcd(pMinus1).equals(BigInteger.ONE)) {
-                         sb.append("\nОшибка: не существует обратного элемента, т.к.\n");
-                         sb.append(String.format("НОД(u_j - u_k, p-1) = НОД(%s, %s) = %s ≠ 1\n",
-                                 u_diff_mod, pMinus1, u_diff_mod.gcd(pMinus1)));
-                         return sb.toString();
-                    }
-                    
-                    BigInteger u_diff_inv = u_diff_mod.modInverse(pMinus1);
-                    BigInteger v_diff_mod = v_diff_raw.mod(pMinus1);
-                    sb.append(String.format("x ≡ %s * %s mod %s\n", u_diff_inv, v_diff_mod, pMinus1));
-                    
-                    BigInteger x = u_diff_inv.multiply(v_diff_mod).mod(pMinus1);
-                    sb.append(String.format("x = %s mod %s\n\n", x, pMinus1));
-                    
-                    BigInteger check = a.modPow(x, p);
-                    sb.append("Проверка: " + a + "^" + x + " mod " + p + " = " + check);
-                    if (check.equals(b)) {
-                        sb.append(" (Верно!)");
-                    } else {
-                        sb.append(" (Неверно!)");
-                    }
-                    
-                    sb.append(String.format("\n\nОтвет: %s mod %s", x, pMinus1));
-
-                    return sb.toString(); 
+                    traceRow(j, nextState);
+                    trace.message(FULL, "");
+                    return solveCollision(k, j, history.get(Math.toIntExact(k)), nextState, pMinus1);
                 }
 
                 history.add(nextState);
+                traceRow(j, nextState);
                 zMap.put(nextState.z, j);
                 currentState = nextState;
                 j++; // ИЗМЕНЕНИЕ: k++ -> j++
 
-                if (j > p.intValue() * 2) { // ИЗМЕНЕНИЕ: k -> j
+                if (j > limit) { // ИЗМЕНЕНИЕ: k -> j
                     throw new ArithmeticException("Коллизия не найдена (превышен лимит итераций)");
                 }
             }
         }
 
+        // Те же итерации в машинных словах: z < p, u и v < p-1 в long. Историю хранить не нужно:
+        // для коллизии достаточно u и v, запомненных в zMap при первом появлении z
+        private BigInteger iterateWord(ModArith.Modulus word, BigInteger pMinus1) {
+            long n = word.modulus();
+            long order = n - 1;
+            long third = n / 3;
+            long twoThirds = third * 2 + (n % 3) * 2 / 3; // floor(2n/3) без переполнения
+            long aWord = a.mod(p).longValue();
+            long bWord = b.mod(p).longValue();
+
+            Map<Long, long[]> zMap = new HashMap<>(); // z -> {i, u_i, v_i}
+            zMap.put(1L, new long[]{0, 0, 0});
+            long limit = iterationLimit();
+
+            traceHeader();
+            traceRow(0, 1, 0, 0);
+
+            long z = 1, u = 0, v = 0;
+            for (long j = 1; j <= limit; j++) {
+                if (z <= third) {
+                    z = word.mulMod(bWord, z);
+                    u = u + 1 == order ? 0 : u + 1;
+                } else if (z <= twoThirds) {
+                    z = word.mulMod(z, z);
+                    u = u >= order - u ? u - (order - u) : u * 2;
+                    v = v >= order - v ? v - (order - v) : v * 2;
+                } else {
+                    z = word.mulMod(aWord, z);
+                    v = v + 1 == order ? 0 : v + 1;
+                }
+                traceRow(j, z, u, v);
+
+                long[] seen = zMap.putIfAbsent(z, new long[]{j, u, v});
+                if (seen != null) {
+                    trace.message(FULL, "");
+                    return solveCollision(seen[0], j, wordState(z, seen[1], seen[2]), wordState(z, u, v), pMinus1);
+                }
+            }
+            throw new ArithmeticException("Коллизия не найдена (превышен лимит итераций)");
+        }
+
+        // 2p итераций, как и раньше, но в long: z принимает меньше p значений, так что
+        // коллизия наступает раньше; для p вне long предел фактически не достижим
+        private long iterationLimit() {
+            return p.bitLength() < 62 ? p.longValue() * 2 : Long.MAX_VALUE;
+        }
+
+        private PollardState wordState(long z, long u, long v) {
+            return new PollardState(BigInteger.valueOf(z), BigInteger.valueOf(u), BigInteger.valueOf(v));
+        }
+
+        // По коллизии z_k = z_j: a^(u_j - u_k) ≡ b^(v_k - v_j)  =>  x
+        private BigInteger solveCollision(long k, long j, PollardState state_k, PollardState state_j, BigInteger pMinus1) {
+            // ИЗМЕНЕНИЕ: Правильный порядок k и j
+            trace.message(SUMMARY, "Коллизия найдена: z_%d = z_%d = %s", k, j, state_j.z);
+            
+            BigInteger u_k = state_k.u; BigInteger v_k = state_k.v;
+            BigInteger u_j = state_j.u; BigInteger v_j = state_j.v;
+            
+            // ИЗМЕНЕНИЕ: Правильный порядок j и k
+            trace.message(SUMMARY, "j = %d, k = %d", j, k);
+            trace.message(SUMMARY, "u_%d = %s, v_%d = %s", j, u_j, j, v_j);
+            trace.message(SUMMARY, "u_%d = %s, v_%d = %s\n", k, u_k, k, v_k);
+            
+            // ИЗМЕНЕНИЕ: Используем правильную формулу (u_j - u_k) и (v_k - v_j)
+            BigInteger u_diff_raw = u_j.subtract(u_k);
+            BigInteger v_diff_raw = v_k.subtract(v_j);
+
+            trace.message(SUMMARY, "x ≡ (u_%d - u_%d)⁻¹ * (v_%d - v_%d) mod (%s - 1)", j, k, k, j, p);
+            trace.message(SUMMARY, "x ≡ (%s - %s)⁻¹ * (%s - %s) mod %s", u_j, u_k, v_k, v_j, pMinus1);
+            trace.message(SUMMARY, "x ≡ (%s)⁻¹ * (%s) mod %s", u_diff_raw, v_diff_raw, pMinus1);
+            
+            BigInteger u_diff_mod = u_diff_raw.mod(pMinus1);
+            if (!u_diff_mod.gcd(pMinus1).equals(BigInteger.ONE)) {
+                 trace.message(SUMMARY, "\nОшибка: не существует обратного элемента, т.к.");
+                 trace.message(SUMMARY, "НОД(u_j - u_k, p-1) = НОД(%s, %s) = %s ≠ 1",
+                         u_diff_mod, pMinus1, u_diff_mod.gcd(pMinus1));
+                 return null;
+            }
+            
+            BigInteger u_diff_inv = u_diff_mod.modInverse(pMinus1);
+            BigInteger v_diff_mod = v_diff_raw.mod(pMinus1);
+            trace.message(SUMMARY, "x ≡ %s * %s mod %s", u_diff_inv, v_diff_mod, pMinus1);
+            
+            BigInteger x = u_diff_inv.multiply(v_diff_mod).mod(pMinus1);
+            trace.message(SUMMARY, "x = %s mod %s\n", x, pMinus1);
+            
+            BigInteger check = a.modPow(x, p);
+            trace.message(SUMMARY, "Проверка: %s^%s mod %s = %s%s", a, x, p, check,
+                    check.equals(b) ? " (Верно!)" : " (Неверно!)");
+            
+            trace.message(SUMMARY, "\nОтвет: %s mod %s", x, pMinus1);
+
+            return x; 
+        }
+
+        private void traceHeader() {
+            // Таблица итераций: строки записываются событиями и форматируются только при выводе
+            trace.message(FULL, "%-4s | %-5s | %-5s | %-5s", "i", "u_i", "v_i", "z_i");
+            trace.message(FULL, "---------------------------");
+        }
+
+        private void traceRow(long i, PollardState s) {
+            if (trace.isFull()) {
+                trace.event(FULL, sb -> sb.append(String.format("%-4d | %-5s | %-5s | %-5s", i, s.u, s.v, s.z)));
+            }
+        }
+
+        private void traceRow(long i, long z, long u, long v) {
+            if (trace.isFull()) {
+                trace.event(FULL, sb -> sb.append(String.format("%-4d | %-5d | %-5d | %-5d", i, u, v, z)));
+            }
+        }
+
         @Override
         protected void done() {
             try {
-                resultArea.setText(get());
+                BigInteger x = get();
+                if (trace.isEnabled(SUMMARY)) {
+                    resultArea.setText(trace.format());
+                } else {
+                    resultArea.setText(x != null
+                            ? String.format("Ответ: %s mod %s", x, p.subtract(BigInteger.ONE))
+                            : "Обратного элемента не существует, x не найден.");
+                }
             } catch (InterruptedException | ExecutionException e) {
                 resultArea.setText("Ошибка вычисления: \n" + e.getCause().getMessage());
             } finally {